@@ -33,7 +33,25 @@ public class Config {
         }
     }
 
+    // Системное свойство (-Dkey=value) имеет приоритет над значением из config.properties
     public static String getProperty(String key) {
-        return getConfig().properties.getProperty(key);
+        return System.getProperty(key, getConfig().properties.getProperty(key));
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        var value = getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Property %s must be an integer, but was: %s".formatted(key, value), e);
+        }
+    }
+
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        var value = getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
     }
 }
@@ -7,11 +7,13 @@ import lombok.Getter;
 @AllArgsConstructor
 @Getter
 public enum Endpoint {
-    BUILD_TYPES("/app/rest/buildTypes", BuildType.class),
-    PROJECTS("/app/rest/projects", Project.class),
-    USERS("/app/rest/users", User.class),
-    AUTH_SETTINGS("/app/rest/server/authSettings", ServerAuthSettings.class);
+    BUILD_TYPES("/app/rest/buildTypes", BuildType.class, "buildType"),
+    PROJECTS("/app/rest/projects", Project.class, "project"),
+    USERS("/app/rest/users", User.class, "user"),
+    AUTH_SETTINGS("/app/rest/server/authSettings", ServerAuthSettings.class, null);
 
     private final String url;
     private final Class<? extends BaseModel> modelClass;
+    // Имя массива сущностей в ответе на запрос коллекции (GET url), null - если коллекции нет
+    private final String collectionField;
 }
@@ -0,0 +1,107 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.enums.Endpoint;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Журнал созданных сущностей на диске (target/cleanup-journal.log) для отложенной очистки.
+ * <p>
+ * Каждая созданная сущность записывается строкой {@code +<TAB>ENDPOINT<TAB>id}, удаленная - {@code -<TAB>ENDPOINT<TAB>id}.
+ * Строка сбрасывается на диск сразу после записи, поэтому если JVM была убита до окончания очистки,
+ * следующий прогон найдет в журнале неудаленные сущности и удалит их (см. {@link #readLeftovers()}).
+ */
+final class CleanupJournal {
+    private static final Path JOURNAL_PATH = Paths.get("target/cleanup-journal.log");
+    private static final String CREATED = "+";
+    private static final String DELETED = "-";
+    private static final String SEPARATOR = "\t";
+
+    private static BufferedWriter writer;
+
+    private CleanupJournal() {
+    }
+
+    static synchronized void created(Endpoint endpoint, String id) {
+        append(CREATED, endpoint, id);
+    }
+
+    static synchronized void deleted(Map<Endpoint, List<String>> entities) {
+        entities.forEach((endpoint, ids) -> ids.forEach(id -> append(DELETED, endpoint, id)));
+    }
+
+    /**
+     * Сущности, которые были записаны в журнал как созданные, но не как удаленные.
+     */
+    static synchronized Map<Endpoint, List<String>> readLeftovers() {
+        var leftovers = new EnumMap<Endpoint, Set<String>>(Endpoint.class);
+        if (Files.exists(JOURNAL_PATH)) {
+            try (var lines = Files.lines(JOURNAL_PATH, StandardCharsets.UTF_8)) {
+                lines.map(line -> line.split(SEPARATOR))
+                        // Последняя строка может быть недописанной, если JVM упала во время записи
+                        .filter(parts -> parts.length == 3)
+                        .forEach(parts -> {
+                            var ids = leftovers.computeIfAbsent(Endpoint.valueOf(parts[1]), key -> new LinkedHashSet<>());
+                            if (CREATED.equals(parts[0])) {
+                                ids.add(parts[2]);
+                            } else {
+                                ids.remove(parts[2]);
+                            }
+                        });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cleanup journal " + JOURNAL_PATH, e);
+            }
+        }
+        var result = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        leftovers.forEach((endpoint, ids) -> result.put(endpoint, new ArrayList<>(ids)));
+        return result;
+    }
+
+    /**
+     * Перезаписывает журнал, оставляя в нем только переданные сущности.
+     */
+    static synchronized void rewrite(Map<Endpoint, List<String>> entities) {
+        try {
+            close();
+            Files.deleteIfExists(JOURNAL_PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rewrite cleanup journal " + JOURNAL_PATH, e);
+        }
+        entities.forEach((endpoint, ids) -> ids.forEach(id -> append(CREATED, endpoint, id)));
+    }
+
+    private static void append(String operation, Endpoint endpoint, String id) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(JOURNAL_PATH.getParent());
+                writer = Files.newBufferedWriter(JOURNAL_PATH, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(operation + SEPARATOR + endpoint.name() + SEPARATOR + id);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cleanup journal " + JOURNAL_PATH, e);
+        }
+    }
+
+    private static void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
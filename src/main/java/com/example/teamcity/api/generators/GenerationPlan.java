@@ -0,0 +1,159 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.annotations.Optional;
+import com.example.teamcity.api.annotations.Parameterizable;
+import com.example.teamcity.api.annotations.Random;
+import com.example.teamcity.api.models.BaseModel;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * План генерации класса: результат однократного разбора полей и аннотаций.
+ * <p>
+ * Рефлексия (getDeclaredFields, isAnnotationPresent, getGenericType) выполняется один раз на класс,
+ * план кешируется в ClassValue, а значения устанавливаются через VarHandle без setAccessible на каждом вызове.
+ * Поля, помеченные @Optional, и поля, которые генератор никак не заполняет, в план не попадают.
+ */
+final class GenerationPlan {
+    private static final ClassValue<GenerationPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected GenerationPlan computeValue(Class<?> type) {
+            return new GenerationPlan(type);
+        }
+    };
+
+    private final MethodHandle constructor;
+    private final List<FieldPlan> fields;
+
+    private GenerationPlan(Class<?> type) {
+        try {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+
+            var fieldPlans = new ArrayList<FieldPlan>();
+            // Порядок полей сохраняется: от него зависит подстановка параметров @Parameterizable
+            for (var field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isAnnotationPresent(Optional.class)) {
+                    continue;
+                }
+                var fieldPlan = FieldPlan.of(lookup, field);
+                if (fieldPlan != null) {
+                    fieldPlans.add(fieldPlan);
+                }
+            }
+            fields = List.copyOf(fieldPlans);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot build generation plan for " + type.getName(), e);
+        }
+    }
+
+    static GenerationPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    Object newInstance() {
+        try {
+            return constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot generate test data", e);
+        }
+    }
+
+    List<FieldPlan> fields() {
+        return fields;
+    }
+
+    /**
+     * Способ заполнения поля, если для него не нашлось параметра.
+     */
+    enum Kind {
+        // @Random String - заполняется рандомной строкой
+        RANDOM_STRING,
+        // @Random другого типа - не заполняется (и не уходит в ветки ниже)
+        RANDOM_UNSUPPORTED,
+        // Наследник BaseModel - генерируется рекурсивно или переиспользуется из generatedModels
+        MODEL,
+        // List<? extends BaseModel> - список из одного сгенерированного элемента
+        MODEL_LIST,
+        // Поле заполняется только параметром
+        NONE
+    }
+
+    static final class FieldPlan {
+        private final VarHandle handle;
+        private final boolean parameterizable;
+        private final Kind kind;
+        private final Class<?> type;
+        private final Class<? extends BaseModel> modelClass;
+
+        private FieldPlan(VarHandle handle, boolean parameterizable, Kind kind, Class<?> type,
+                          Class<? extends BaseModel> modelClass) {
+            this.handle = handle;
+            this.parameterizable = parameterizable;
+            this.kind = kind;
+            this.type = type;
+            this.modelClass = modelClass;
+        }
+
+        private static FieldPlan of(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+            var type = field.getType();
+            var parameterizable = field.isAnnotationPresent(Parameterizable.class);
+            Kind kind = Kind.NONE;
+            Class<? extends BaseModel> modelClass = null;
+
+            if (field.isAnnotationPresent(Random.class)) {
+                kind = String.class.equals(type) ? Kind.RANDOM_STRING : Kind.RANDOM_UNSUPPORTED;
+            } else if (BaseModel.class.isAssignableFrom(type)) {
+                kind = Kind.MODEL;
+                modelClass = type.asSubclass(BaseModel.class);
+            } else if (List.class.isAssignableFrom(type)
+                    && field.getGenericType() instanceof ParameterizedType pt
+                    && pt.getActualTypeArguments()[0] instanceof Class<?> typeClass
+                    && BaseModel.class.isAssignableFrom(typeClass)) {
+                kind = Kind.MODEL_LIST;
+                modelClass = typeClass.asSubclass(BaseModel.class);
+            }
+
+            if (!parameterizable && (kind == Kind.NONE || kind == Kind.RANDOM_UNSUPPORTED)) {
+                return null;
+            }
+            return new FieldPlan(lookup.unreflectVarHandle(field), parameterizable, kind, type, modelClass);
+        }
+
+        boolean isParameterizable() {
+            return parameterizable;
+        }
+
+        Kind kind() {
+            return kind;
+        }
+
+        Class<?> type() {
+            return type;
+        }
+
+        Class<? extends BaseModel> modelClass() {
+            return modelClass;
+        }
+
+        void set(Object instance, Object value) {
+            try {
+                handle.set(instance, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Cannot set value of type %s to field of type %s"
+                        .formatted(value.getClass().getName(), type.getName()), e);
+            }
+        }
+    }
+}
@@ -6,15 +6,27 @@ public final class RandomData {
     private static final String TEST_PREFIX = "test_";
     private static final int MAX_LENGTH = 10;
 
+    // Уникальная в пределах прогона строка (см. UniqueIdAllocator), годится для id, имен и логинов
     public static String getString() {
-        return TEST_PREFIX + RandomStringUtils.randomAlphabetic(MAX_LENGTH);
+        return TEST_PREFIX + UniqueIdAllocator.next();
     }
+
+    // Префикс строк getString() этого прогона: по нему находятся созданные прогоном сущности
+    static String runPrefix() {
+        return TEST_PREFIX + UniqueIdAllocator.runPrefix();
+    }
+
     public static String getString(int length) {
-        return TEST_PREFIX + RandomStringUtils.randomAlphabetic(
-                Math.max(length - TEST_PREFIX.length(), MAX_LENGTH));
+        return TEST_PREFIX + randomAlphabetic(Math.max(length - TEST_PREFIX.length(), MAX_LENGTH));
     }
 
     public static Integer getInteger() {
-        return Integer.valueOf(RandomStringUtils.randomNumeric(MAX_LENGTH));
+        return Integer.valueOf(RandomStringUtils.random(MAX_LENGTH, 0, 0, false, true, null, UniqueIdAllocator.random()));
+    }
+
+    // Генератор потока из UniqueIdAllocator вместо общего Random внутри RandomStringUtils: нет конкуренции потоков,
+    // а значения воспроизводятся при том же testDataSeed
+    private static String randomAlphabetic(int count) {
+        return RandomStringUtils.random(count, 0, 0, true, false, null, UniqueIdAllocator.random());
     }
 }
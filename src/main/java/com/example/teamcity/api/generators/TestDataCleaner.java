@@ -0,0 +1,130 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.logging.RequestLog;
+import com.example.teamcity.api.requests.UncheckedRequests;
+import com.example.teamcity.api.spec.Specifications;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+import org.apache.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Удаление созданных тестами сущностей.
+ * <p>
+ * Эндпоинты разбиваются на ярусы по зависимостям: сначала удаляются сущности, которые ссылаются на другие
+ * (BUILD_TYPES), затем те, на которые ссылаются (PROJECTS). Внутри яруса DELETE-запросы отправляются параллельно
+ * в ограниченном пуле потоков (свойство cleanupThreads). Все запросы идут через одну super user спецификацию.
+ * <p>
+ * Ошибки не игнорируются: все неуспешные удаления собираются и возвращаются вызывающему коду.
+ */
+final class TestDataCleaner {
+    private static final String CLEANUP_THREADS_PROPERTY = "cleanupThreads";
+    private static final int DEFAULT_CLEANUP_THREADS = 8;
+    /**
+     * Эндпоинт -> эндпоинты, на сущности которых он ссылается (и которые удаляются после него)
+     */
+    private static final Map<Endpoint, Set<Endpoint>> REFERENCES = Map.of(
+            Endpoint.BUILD_TYPES, EnumSet.of(Endpoint.PROJECTS)
+    );
+    private static final List<Set<Endpoint>> TIERS = buildTiers();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Config.getIntProperty(CLEANUP_THREADS_PROPERTY, DEFAULT_CLEANUP_THREADS),
+            new NamedThreadFactory("test-data-cleaner"));
+
+    private TestDataCleaner() {
+    }
+
+    /**
+     * Удаляет сущности ярус за ярусом и возвращает список ошибок (пустой, если все удалено).
+     * Ответ 404 считается успешным: сущность уже удалена, например каскадно вместе с родительским проектом.
+     */
+    static List<Failure> delete(Map<Endpoint, List<String>> entities) {
+        var failures = new ConcurrentLinkedQueue<Failure>();
+        for (var tier : plan(entities)) {
+            var deletes = new ArrayList<CompletableFuture<Void>>();
+            tier.forEach((endpoint, ids) -> ids.forEach(id -> deletes.add(
+                    CompletableFuture.runAsync(RequestLog.bind(() -> delete(endpoint, id, failures)), EXECUTOR))));
+            // Следующий ярус начинаем только после завершения текущего
+            CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)).join();
+        }
+        return List.copyOf(failures);
+    }
+
+    /**
+     * План удаления без запросов: непустые ярусы в порядке удаления, в каждом - id по эндпоинтам.
+     * Сущности эндпоинтов, которые не удаляются (AUTH_SETTINGS), в план не попадают.
+     */
+    static List<Map<Endpoint, List<String>>> plan(Map<Endpoint, List<String>> entities) {
+        var plan = new ArrayList<Map<Endpoint, List<String>>>();
+        for (var tier : TIERS) {
+            var ids = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+            for (var endpoint : tier) {
+                var endpointIds = entities.getOrDefault(endpoint, List.of());
+                if (!endpointIds.isEmpty()) {
+                    ids.put(endpoint, List.copyOf(endpointIds));
+                }
+            }
+            if (!ids.isEmpty()) {
+                plan.add(ids);
+            }
+        }
+        return plan;
+    }
+
+    private static void delete(Endpoint endpoint, String id, Collection<Failure> failures) {
+        try {
+            var response = SuperUser.REQUESTS.getRequest(endpoint).delete("id:" + id);
+            var statusCode = response.getStatusCode();
+            if (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_NO_CONTENT
+                    && statusCode != HttpStatus.SC_NOT_FOUND) {
+                failures.add(new Failure(endpoint, id, statusCode + ": " + response.asString()));
+            }
+        } catch (RuntimeException e) {
+            failures.add(new Failure(endpoint, id, e.toString()));
+        }
+    }
+
+    // Топологическая сортировка эндпоинтов по слоям: в ярус попадают эндпоинты, на которые никто из оставшихся не ссылается
+    private static List<Set<Endpoint>> buildTiers() {
+        var remaining = EnumSet.allOf(Endpoint.class);
+        // Настройки авторизации сервера не удаляются
+        remaining.remove(Endpoint.AUTH_SETTINGS);
+        var tiers = new ArrayList<Set<Endpoint>>();
+        while (!remaining.isEmpty()) {
+            var tier = EnumSet.copyOf(remaining);
+            for (var endpoint : remaining) {
+                tier.removeAll(REFERENCES.getOrDefault(endpoint, Set.of()));
+            }
+            if (tier.isEmpty()) {
+                throw new IllegalStateException("Cyclic references between endpoints: " + remaining);
+            }
+            tiers.add(tier);
+            remaining.removeAll(tier);
+        }
+        return List.copyOf(tiers);
+    }
+
+    record Failure(Endpoint endpoint, String id, String reason) {
+        @Override
+        public String toString() {
+            return "DELETE %s/id:%s -> %s".formatted(endpoint.getUrl(), id, reason);
+        }
+    }
+
+    // Спецификация и запросы создаются один раз, при первой очистке
+    private static final class SuperUser {
+        private static final UncheckedRequests REQUESTS = new UncheckedRequests(Specifications.superUserSpec());
+    }
+}
@@ -1,17 +1,15 @@
 package com.example.teamcity.api.generators;
 
-import com.example.teamcity.api.annotations.Optional;
-import com.example.teamcity.api.annotations.Parameterizable;
-import com.example.teamcity.api.annotations.Random;
 import com.example.teamcity.api.models.BaseModel;
 import com.example.teamcity.api.models.TestData;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public final class TestDataGenerator {
 
@@ -45,88 +43,93 @@ public final class TestDataGenerator {
      */
     public static <T extends BaseModel> T generate(List<BaseModel> generatedModels, Class<T> generatorClass,
                                                    Object... parameters) {
-        try {
-            //Создание нового экземпляра класса generatorClass с использованием конструктора по умолчанию
-            var instance = generatorClass.getDeclaredConstructor().newInstance();
+        // План (поля, аннотации, сеттеры) вычисляется один раз на класс и берется из кеша
+        var plan = GenerationPlan.of(generatorClass);
+        //Создание нового экземпляра класса generatorClass с использованием конструктора по умолчанию
+        var instance = generatorClass.cast(plan.newInstance());
+        // Индекс следующего неиспользованного параметра
+        var parameterIndex = 0;
 
-            //Перебор всех полей класса generatorClass
-            for (var field : generatorClass.getDeclaredFields()) {
-                //Делаем приватные поля доступными
-                field.setAccessible(true);
-
-                //Проверяем что поле не помечено как не обязательное (@Optional)
-                if (!field.isAnnotationPresent(Optional.class)) {
-                    // Пытаемся найти ранее сгенерированную модель того же типа, что и поле
-                    var generatedClass = generatedModels.stream().filter(m
-                            -> m.getClass().equals(field.getType())).findFirst();
-                    // Проверяем, можно ли параметризировать поле, и доступны ли параметры
-                    if (field.isAnnotationPresent(Parameterizable.class) && parameters.length > 0) {
-                        // Устанавливаем поле с первым параметром и обновлем массив параметров
-                        field.set(instance, parameters[0]);
-                        parameters = Arrays.copyOfRange(parameters, 1, parameters.length);
-
-                        // Проверяем, должны ли мы заполнять поле случайными данными
-                    } else if (field.isAnnotationPresent(Random.class)) {
-                        // Устанавливаем поле случайной строкой
-                        if (String.class.equals(field.getType())) {
-                            field.set(instance, RandomData.getString());
-                        }
-                        // Или случайным числом
-//                        } else if (Integer.class.equals(field.getType())) {
-//                            field.set(instance, RandomData.getInteger());
-//                        }
-
-                        // Обрабатываем инициализацию полей, являющихся подклассами BaseModel
-                    } else if (BaseModel.class.isAssignableFrom(field.getType())) {
-                        var finalParameters = parameters;
-                        // Рекурсивно генерируем экземпляр для этого поля или используем найденный экземпляр
-                        field.set(instance, generatedClass.orElseGet(() -> generate(
-                                generatedModels, field.getType().asSubclass(BaseModel.class), finalParameters)));
-
-                        // Обрабатываем поля, являющиеся списками подклассов BaseModel
-                    } else if (List.class.isAssignableFrom(field.getType())) {
-                        if (field.getGenericType() instanceof ParameterizedType pt) {
-                            var typeClass = (Class<?>) pt.getActualTypeArguments()[0];
-                            if (BaseModel.class.isAssignableFrom(typeClass)) {
-                                var finalParameters = parameters;
-                                // Рекурсивно генерируем список экземпляров или используем найденные экземпляры
-                                field.set(instance, generatedClass.map(List::of).orElseGet(() -> List.of(generate(
-                                        generatedModels, typeClass.asSubclass(BaseModel.class), finalParameters))));
-                            }
-                        }
-                    }
+        //Перебор полей из плана (поля с @Optional в план не попадают)
+        for (var field : plan.fields()) {
+            // Проверяем, можно ли параметризировать поле, и доступны ли параметры
+            if (field.isParameterizable() && parameterIndex < parameters.length) {
+                // Устанавливаем поле очередным параметром
+                field.set(instance, parameters[parameterIndex++]);
+                continue;
+            }
+            var finalParameters = remaining(parameters, parameterIndex);
+            switch (field.kind()) {
+                // Устанавливаем поле случайной строкой
+                case RANDOM_STRING -> field.set(instance, RandomData.getString());
+                // Рекурсивно генерируем экземпляр для этого поля или используем ранее сгенерированный
+                case MODEL -> field.set(instance, findGenerated(generatedModels, field.type())
+                        .orElseGet(() -> generate(generatedModels, field.modelClass(), finalParameters)));
+                // Рекурсивно генерируем список экземпляров или используем найденные экземпляры
+                case MODEL_LIST -> field.set(instance, findGenerated(generatedModels, field.type())
+                        .map(List::of)
+                        .orElseGet(() -> List.of(generate(generatedModels, field.modelClass(), finalParameters))));
+                default -> {
                 }
-                // Возвращаем изменения доступности поля в исходное состояние
-                field.setAccessible(false);
             }
-            // Возвращаем полностью инициализированный и заполненный экземпляр
-            return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException
-                 | NoSuchMethodException e) {
-            throw new IllegalStateException("Cannot generate test data", e);
         }
+        // Возвращаем полностью инициализированный и заполненный экземпляр
+        return instance;
     }
 
     public static TestData generate() {
         // Идем по всем полям TestData и для каждого, кто наследник BaseModel, вызываем generate()
         // с передачей уже сгенерированных сущностей
-        try {
-            var instance = TestData.class.getDeclaredConstructor().newInstance();
-            var generatedModels = new ArrayList<BaseModel>();
-            for (var field : TestData.class.getDeclaredFields()) {
-                field.setAccessible(true);
-                if (BaseModel.class.isAssignableFrom(field.getType())) {
-                    var generatedModel = generate(generatedModels, field.getType().asSubclass(BaseModel.class));
-                    field.set(instance, generatedModel);
-                    generatedModels.add(generatedModel);
-                }
-                field.setAccessible(false);
+        var plan = GenerationPlan.of(TestData.class);
+        var instance = (TestData) plan.newInstance();
+        var generatedModels = new ArrayList<BaseModel>();
+        for (var field : plan.fields()) {
+            if (field.kind() == GenerationPlan.Kind.MODEL) {
+                var generatedModel = generate(generatedModels, field.modelClass());
+                field.set(instance, generatedModel);
+                generatedModels.add(generatedModel);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Пакетная генерация n независимых TestData.
+     * <p>
+     * Каждый граф генерируется со своим списком generatedModels, поэтому BuildType.project ссылается на Project
+     * из того же TestData. При parallel = true генерация идет в общем ForkJoinPool.
+     */
+    public static List<TestData> generateBatch(int n, boolean parallel) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Batch size must not be negative: " + n);
+        }
+        var indexes = IntStream.range(0, n);
+        return (parallel ? indexes.parallel() : indexes)
+                .mapToObj(i -> generate())
+                .toList();
+    }
+
+    public static List<TestData> generateBatch(int n) {
+        return generateBatch(n, false);
+    }
+
+    // Бесконечный поток независимых TestData, ограничивается вызывающим кодом (например, limit())
+    public static Stream<TestData> generateStream() {
+        return Stream.generate(TestDataGenerator::generate);
+    }
+
+    // Пытаемся найти ранее сгенерированную модель того же типа, что и поле
+    private static Optional<BaseModel> findGenerated(List<BaseModel> generatedModels, Class<?> type) {
+        for (var model : generatedModels) {
+            if (model.getClass().equals(type)) {
+                return Optional.of(model);
             }
-            return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
-                 NoSuchMethodException e) {
-            throw new IllegalStateException("Cannot generate test data", e);
         }
+        return Optional.empty();
+    }
+
+    private static Object[] remaining(Object[] parameters, int parameterIndex) {
+        return parameterIndex == 0 ? parameters : Arrays.copyOfRange(parameters, parameterIndex, parameters.length);
     }
 
     // Метод, чтобы сгенерировать одну сущность. Передает пустой параметр generatedModels
@@ -1,33 +1,70 @@
 package com.example.teamcity.api.generators;
 
+import com.example.teamcity.api.config.Config;
 import com.example.teamcity.api.enums.Endpoint;
 import com.example.teamcity.api.models.BaseModel;
-import com.example.teamcity.api.requests.unchecked.UncheckedBase;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.models.User;
+import com.example.teamcity.api.readiness.ServerReadiness;
+import com.example.teamcity.api.requests.CollectionRequest;
 import com.example.teamcity.api.spec.Specifications;
+import com.example.teamcity.api.utils.NamedThreadFactory;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
+/**
+ * Реестр созданных тестом сущностей, которые нужно удалить после теста.
+ * <p>
+ * У каждого потока свой реестр: TestNG выполняет @BeforeMethod, тест и @AfterMethod в одном потоке,
+ * поэтому при parallel="methods" тест удаляет только то, что создал сам. Множества id - конкурентные,
+ * так что в реестр теста можно безопасно добавлять сущности и из других потоков.
+ * <p>
+ * При deferredCleanup=true удаление не блокирует тест: сущности передаются фоновому потоку, который удаляет их,
+ * пока выполняются следующие тесты, а каждая созданная сущность пишется в журнал на диске (см. CleanupJournal).
+ * Остатки из журнала прогона, который не завершился, удаляет {@link #deleteLeftovers()}.
+ */
 public class TestDataStorage {
-    private static TestDataStorage testDataStorage;
+    private static final String ID_LOCATOR = "id:";
+    private static final ThreadLocal<TestDataStorage> STORAGE = ThreadLocal.withInitial(TestDataStorage::new);
+    private static final boolean DEFERRED_CLEANUP = Config.getBooleanProperty("deferredCleanup", false);
+    private static final ExecutorService DEFERRED_CLEANER = Executors.newSingleThreadExecutor(
+            new NamedThreadFactory("deferred-cleanup"));
+    private static final Queue<TestDataCleaner.Failure> DEFERRED_FAILURES = new ConcurrentLinkedQueue<>();
+    // Ключи заполняются в конструкторе и больше не меняются, поэтому EnumMap безопасен для чтения из разных потоков
+    // и сохраняет порядок эндпоинтов
     private final EnumMap<Endpoint, Set<String>> createdEntitiesMap;
+    // id build type -> id его проекта, для каскадного удаления
+    private final Map<String, String> buildTypeProjects = new ConcurrentHashMap<>();
 
     private TestDataStorage() {
         createdEntitiesMap = new EnumMap<>(Endpoint.class);
+        for (var endpoint : Endpoint.values()) {
+            createdEntitiesMap.put(endpoint, ConcurrentHashMap.newKeySet());
+        }
     }
 
     public static TestDataStorage getStorage() {
-        if (testDataStorage == null) {
-            testDataStorage = new TestDataStorage();
-        }
-        return testDataStorage;
+        return STORAGE.get();
     }
 
     private void addCreatedEntity(Endpoint endpoint, String id) {
-        if (id != null) {
-            createdEntitiesMap.computeIfAbsent(endpoint, key -> new HashSet<>()).add(id);
+        if (id != null && createdEntitiesMap.get(endpoint).add(id) && DEFERRED_CLEANUP) {
+            CleanupJournal.created(endpoint, id);
         }
     }
 
@@ -51,18 +88,231 @@ public class TestDataStorage {
         }
     }
 
+    /**
+     * Выполняет action так, чтобы сущности, созданные в нем через CheckedBase, попали в этот реестр.
+     * Нужен для запросов, которые тест отправляет из других потоков (см. AsyncCheckedBase).
+     */
+    public <R> R callBound(Supplier<R> action) {
+        var previous = STORAGE.get();
+        STORAGE.set(this);
+        try {
+            return action.get();
+        } finally {
+            STORAGE.set(previous);
+        }
+    }
+
     public void addCreatedEntity(Endpoint endpoint, BaseModel model) {
-        addCreatedEntity(endpoint, getEntityIdOrLocator(model));
+        var id = getEntityIdOrLocator(model);
+        addCreatedEntity(endpoint, id);
+        if (id != null && model instanceof BuildType buildType && buildType.getProject() != null
+                && buildType.getProject().getId() != null) {
+            buildTypeProjects.put(id, buildType.getProject().getId());
+        }
+    }
+
+    /**
+     * Убирает из реестра сущность, которую тест удалил сам, вместе с build type удаленного проекта.
+     * Принимает id или локатор вида id:&lt;id&gt;.
+     */
+    public void removeCreatedEntity(Endpoint endpoint, String idOrLocator) {
+        var id = idOrLocator.startsWith(ID_LOCATOR) ? idOrLocator.substring(ID_LOCATOR.length()) : idOrLocator;
+        var removed = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        if (createdEntitiesMap.get(endpoint).remove(id)) {
+            removed.put(endpoint, new ArrayList<>(List.of(id)));
+        }
+        if (endpoint == Endpoint.BUILD_TYPES) {
+            buildTypeProjects.remove(id);
+        } else if (endpoint == Endpoint.PROJECTS) {
+            buildTypeProjects.entrySet().removeIf(buildTypeProject -> {
+                if (!buildTypeProject.getValue().equals(id)) {
+                    return false;
+                }
+                if (createdEntitiesMap.get(Endpoint.BUILD_TYPES).remove(buildTypeProject.getKey())) {
+                    removed.computeIfAbsent(Endpoint.BUILD_TYPES, key -> new ArrayList<>()).add(buildTypeProject.getKey());
+                }
+                return true;
+            });
+        }
+        if (DEFERRED_CLEANUP && !removed.isEmpty()) {
+            CleanupJournal.deleted(removed);
+        }
     }
 
+    /**
+     * Удаляет созданные тестом сущности (см. TestDataCleaner) и очищает реестр.
+     * <p>
+     * Build type, чей проект тоже создан тестом, отдельно не удаляется: TeamCity удаляет его каскадно вместе
+     * с проектом. Если какие-то сущности удалить не удалось, после попытки удалить все остальные
+     * выбрасывается IllegalStateException со списком ошибок.
+     * <p>
+     * В режиме deferredCleanup метод только передает сущности фоновому потоку, а ошибки
+     * выбрасывает {@link #awaitDeferredCleanup()}.
+     */
     public void deleteCreatedEntities() {
-        createdEntitiesMap.forEach(((endpoint, ids) ->
-                        ids.forEach(id ->
-                                new UncheckedBase(Specifications.superUserSpec(), endpoint).delete("id:" + id)
-                        )
-                )
-        );
-
-        createdEntitiesMap.clear();
+        var entities = drainCreatedEntities();
+        var cascaded = cascadedBuildTypes(entities);
+        if (DEFERRED_CLEANUP) {
+            DEFERRED_CLEANER.execute(() -> DEFERRED_FAILURES.addAll(delete(entities, cascaded)));
+        } else {
+            throwIfFailed(delete(entities, cascaded));
+        }
+    }
+
+    /**
+     * Дожидается, пока фоновый поток удалит все переданные ему сущности. Вызывается в конце прогона.
+     */
+    public static void awaitDeferredCleanup() {
+        try {
+            // Поток один, поэтому пустая задача выполнится после всех ранее переданных
+            DEFERRED_CLEANER.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for deferred cleanup", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Deferred cleanup failed", e);
+        }
+        var failures = new ArrayList<TestDataCleaner.Failure>();
+        TestDataCleaner.Failure failure;
+        while ((failure = DEFERRED_FAILURES.poll()) != null) {
+            failures.add(failure);
+        }
+        throwIfFailed(failures);
+    }
+
+    /**
+     * Удаляет сущности, оставшиеся в журнале после прогона, JVM которого была остановлена до окончания очистки.
+     * Сущности, которые удалить не удалось, остаются в журнале до следующей попытки.
+     * Если остатки есть, сначала дожидается готовности REST API (см. ServerReadiness): метод вызывается
+     * в @BeforeSuite базового класса, раньше проверок готовности в подклассах.
+     */
+    public static void deleteLeftovers() {
+        var leftovers = CleanupJournal.readLeftovers();
+        if (leftovers.values().stream().allMatch(List::isEmpty)) {
+            return;
+        }
+        // Прогон мог начаться, пока сервер еще стартует
+        ServerReadiness.awaitRestApi();
+        var failures = TestDataCleaner.delete(leftovers);
+        var notDeleted = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        failures.forEach(failure -> notDeleted.computeIfAbsent(failure.endpoint(), key -> new ArrayList<>())
+                .add(failure.id()));
+        CleanupJournal.rewrite(notDeleted);
+        failures.forEach(failure -> System.err.println("Cannot delete leftover entity: " + failure));
+    }
+
+    /**
+     * Ищет на сервере сущности этого прогона, оставшиеся после очистки, и удаляет их. Сущность прогона узнается
+     * по префиксу сгенерированного id (у пользователя - имени), см. RandomData.getString(). Найденные сущности
+     * печатаются: они означают, что очистка что-то пропустила. Возвращает найденные id по эндпоинтам.
+     * <p>
+     * Читает все проекты, build type и пользователей сервера, поэтому вызывается в конце прогона только
+     * при leakSweep=true, когда очистка уже закончилась.
+     */
+    public static Map<Endpoint, List<String>> sweepLeakedEntities() {
+        return sweepLeakedEntities(RandomData.runPrefix());
+    }
+
+    /**
+     * То же для сущностей с произвольным префиксом id (у пользователя - имени).
+     */
+    public static Map<Endpoint, List<String>> sweepLeakedEntities(String prefix) {
+        var spec = Specifications.superUserSpec();
+        var leaked = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        try (var buildTypes = new CollectionRequest<BuildType>(spec, Endpoint.BUILD_TYPES).stream(null, "id")) {
+            leaked.put(Endpoint.BUILD_TYPES, buildTypes.map(BuildType::getId)
+                    .filter(id -> id != null && id.startsWith(prefix))
+                    .toList());
+        }
+        try (var projects = new CollectionRequest<Project>(spec, Endpoint.PROJECTS).stream(null, "id")) {
+            leaked.put(Endpoint.PROJECTS, projects.map(Project::getId)
+                    .filter(id -> id != null && id.startsWith(prefix))
+                    .toList());
+        }
+        try (var users = new CollectionRequest<User>(spec, Endpoint.USERS).stream(null, "id,username")) {
+            leaked.put(Endpoint.USERS, users
+                    .filter(user -> user.getUsername() != null && user.getUsername().startsWith(prefix))
+                    .map(User::getId)
+                    .toList());
+        }
+        if (leaked.values().stream().allMatch(List::isEmpty)) {
+            return leaked;
+        }
+        System.err.println("Entities left on the server after cleanup: " + leaked);
+        throwIfFailed(TestDataCleaner.delete(leaked));
+        return leaked;
+    }
+
+    // cascaded: id build type -> id проекта, вместе с которым он удаляется каскадно
+    private static List<TestDataCleaner.Failure> delete(Map<Endpoint, List<String>> entities,
+                                                        Map<String, String> cascaded) {
+        var failures = TestDataCleaner.delete(withoutCascaded(entities, cascaded));
+        if (DEFERRED_CLEANUP) {
+            // В журнале удаленными отмечаются и каскадно удаленные build type, но только если удалился их проект:
+            // иначе build type остается в журнале и будет удален как остаток в следующем прогоне
+            var failed = new HashSet<String>();
+            failures.forEach(failure -> failed.add(failure.endpoint() + ":" + failure.id()));
+            var deleted = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+            entities.forEach((endpoint, ids) -> deleted.put(endpoint, ids.stream()
+                    .filter(id -> !failed.contains(endpoint + ":" + id))
+                    .filter(id -> endpoint != Endpoint.BUILD_TYPES || !cascaded.containsKey(id)
+                            || !failed.contains(Endpoint.PROJECTS + ":" + cascaded.get(id)))
+                    .toList()));
+            CleanupJournal.deleted(deleted);
+        }
+        return failures;
+    }
+
+    private static void throwIfFailed(List<TestDataCleaner.Failure> failures) {
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Cannot delete created entities:\n"
+                    + String.join("\n", failures.stream().map(Object::toString).toList()));
+        }
+    }
+
+    // Забирает id из реестра по одному, чтобы не потерять сущности, добавленные во время очистки
+    private Map<Endpoint, List<String>> drainCreatedEntities() {
+        var entities = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        createdEntitiesMap.forEach((endpoint, ids) -> {
+            var drained = new ArrayList<String>();
+            for (var id : ids) {
+                if (ids.remove(id)) {
+                    drained.add(id);
+                }
+            }
+            entities.put(endpoint, drained);
+        });
+        return entities;
+    }
+
+    private Map<String, String> cascadedBuildTypes(Map<Endpoint, List<String>> entities) {
+        var cascaded = cascadedBuildTypes(entities, buildTypeProjects);
+        entities.get(Endpoint.BUILD_TYPES).forEach(buildTypeProjects::remove);
+        return cascaded;
+    }
+
+    // Build type, которые TeamCity удалит каскадно вместе с их проектом из этой же очистки: id build type -> id проекта
+    static Map<String, String> cascadedBuildTypes(Map<Endpoint, List<String>> entities,
+                                                  Map<String, String> buildTypeProjects) {
+        var deletedProjects = Set.copyOf(entities.getOrDefault(Endpoint.PROJECTS, List.of()));
+        var cascaded = new HashMap<String, String>();
+        for (var id : entities.getOrDefault(Endpoint.BUILD_TYPES, List.of())) {
+            var projectId = buildTypeProjects.get(id);
+            if (projectId != null && deletedProjects.contains(projectId)) {
+                cascaded.put(id, projectId);
+            }
+        }
+        return cascaded;
+    }
+
+    // Сущности, для которых нужен отдельный DELETE: без build type, удаляемых каскадно
+    static Map<Endpoint, List<String>> withoutCascaded(Map<Endpoint, List<String>> entities,
+                                                       Map<String, String> cascaded) {
+        var toDelete = new EnumMap<Endpoint, List<String>>(Endpoint.class);
+        toDelete.putAll(entities);
+        toDelete.put(Endpoint.BUILD_TYPES, entities.getOrDefault(Endpoint.BUILD_TYPES, List.of()).stream()
+                .filter(id -> !cascaded.containsKey(id))
+                .toList());
+        return toDelete;
     }
 }
@@ -0,0 +1,159 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Аллокатор уникальных идентификаторов для полей с аннотацией @Random.
+ * <p>
+ * Идентификатор имеет вид {@code <run>_<thread>_<counter>} в base36 (строчные латинские буквы и цифры):
+ * run - токен прогона, thread - порядковый номер потока, counter - счетчик внутри потока.
+ * Уникальность в пределах прогона гарантируется построением, а не вероятностью: у каждого потока свой номер
+ * и свой счетчик, поэтому потоки не конкурируют за общее состояние.
+ * <p>
+ * Токен прогона выводится из seed. Если seed задан свойством testDataSeed, прогон воспроизводим:
+ * при том же порядке генерации будут выданы те же идентификаторы. Номера потокам выдаются в порядке первого
+ * обращения, поэтому при параллельном запуске точное воспроизведение гарантируется только для однопоточного прогона.
+ * Внешний источник seed (например, файл записанных HTTP-обменов) передает его через {@link #useSeed(long)}
+ * до первой генерации; явное свойство testDataSeed важнее. Seed прогона пишется в target/test-data-seed.json.
+ * <p>
+ * Из того же seed выводятся генераторы случайных чисел потоков ({@link #random()}), которыми пользуется RandomData.
+ */
+public final class UniqueIdAllocator {
+    private static final String SEED_PROPERTY = "testDataSeed";
+    private static final int RADIX = 36;
+    private static final int RUN_TOKEN_LENGTH = 8;
+    private static final Path REPORT_PATH = Paths.get("target/test-data-seed.json");
+    // Создается при первой генерации, чтобы источник seed успел передать его через useSeed
+    private static volatile UniqueIdAllocator allocator;
+    private static Long externalSeed;
+
+    private final long seed;
+    private final String runToken;
+    private final AtomicInteger threadIndexes = new AtomicInteger();
+    private final ThreadLocal<ThreadCounter> counters;
+
+    private UniqueIdAllocator(long seed) {
+        this.seed = seed;
+        this.runToken = toRunToken(seed);
+        this.counters = ThreadLocal.withInitial(() -> {
+            var threadIndex = threadIndexes.getAndIncrement();
+            return new ThreadCounter(runToken + "_" + Integer.toString(threadIndex, RADIX) + "_",
+                    new Random(mix(seed + threadIndex)));
+        });
+        export(seed);
+    }
+
+    /**
+     * Задает seed из внешнего источника, если seed не задан свойством testDataSeed. Вызывается до первой генерации;
+     * если идентификаторы уже выдавались с другим seed, выбрасывает IllegalStateException.
+     */
+    public static synchronized void useSeed(long seed) {
+        if (allocator == null) {
+            externalSeed = seed;
+        } else if (Config.getProperty(SEED_PROPERTY) == null && allocator.seed != seed) {
+            throw new IllegalStateException("Test data seed %d is already in use, cannot switch to %d"
+                    .formatted(allocator.seed, seed));
+        }
+    }
+
+    private static UniqueIdAllocator allocator() {
+        var current = allocator;
+        if (current == null) {
+            synchronized (UniqueIdAllocator.class) {
+                if (allocator == null) {
+                    allocator = new UniqueIdAllocator(resolveSeed());
+                }
+                current = allocator;
+            }
+        }
+        return current;
+    }
+
+    public static String next() {
+        return allocator().counters.get().next();
+    }
+
+    /**
+     * Генератор случайных чисел текущего потока, выведенный из seed прогона и номера потока.
+     */
+    public static Random random() {
+        return allocator().counters.get().random;
+    }
+
+    // Общая часть всех идентификаторов прогона: <run>_
+    static String runPrefix() {
+        return allocator().runToken + "_";
+    }
+
+    public static long getSeed() {
+        return allocator().seed;
+    }
+
+    private static long resolveSeed() {
+        var seed = Config.getProperty(SEED_PROPERTY);
+        if (seed == null || seed.isBlank()) {
+            return externalSeed != null ? externalSeed : ThreadLocalRandom.current().nextLong();
+        }
+        try {
+            return Long.parseLong(seed.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Property %s must be a long, but was: %s".formatted(SEED_PROPERTY, seed), e);
+        }
+    }
+
+    // Seed нужен, чтобы воспроизвести прогон: -DtestDataSeed=<seed>
+    private static void export(long seed) {
+        try {
+            var json = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(Map.of(
+                    "seed", seed, "reproduceWith", "-D%s=%d".formatted(SEED_PROPERTY, seed)));
+            Files.createDirectories(REPORT_PATH.getParent());
+            Files.writeString(REPORT_PATH, json, StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize test data seed report", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write test data seed report to " + REPORT_PATH, e);
+        }
+    }
+
+    // Перемешивание seed (SplitMix64), чтобы соседние seed давали непохожие токены фиксированной длины
+    private static String toRunToken(long seed) {
+        var z = mix(seed);
+        var token = "0".repeat(RUN_TOKEN_LENGTH) + Long.toUnsignedString(z, RADIX);
+        return token.substring(token.length() - RUN_TOKEN_LENGTH);
+    }
+
+    private static long mix(long seed) {
+        var z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class ThreadCounter {
+        private final String prefix;
+        private final Random random;
+        private long counter;
+
+        private ThreadCounter(String prefix, Random random) {
+            this.prefix = prefix;
+            this.random = random;
+        }
+
+        private String next() {
+            return prefix + Long.toString(counter++, RADIX);
+        }
+    }
+}
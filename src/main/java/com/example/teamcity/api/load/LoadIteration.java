@@ -0,0 +1,42 @@
+package com.example.teamcity.api.load;
+
+import com.example.teamcity.api.enums.Endpoint;
+
+import java.util.function.Supplier;
+
+/**
+ * Одна итерация сценария. Задержка первого шага считается от запланированного времени старта итерации,
+ * а не от фактического: если пул не успевает, ожидание в очереди попадает в задержку
+ * (без этого open-loop тест занижал бы хвосты распределения). Задержка следующих шагов считается
+ * от окончания предыдущего.
+ */
+public final class LoadIteration {
+    private final LoadStats stats;
+    private final boolean measured;
+    private long stepStartNanos;
+
+    LoadIteration(LoadStats stats, boolean measured, long intendedStartNanos) {
+        this.stats = stats;
+        this.measured = measured;
+        this.stepStartNanos = intendedStartNanos;
+    }
+
+    /**
+     * Выполняет запрос и записывает его задержку и результат в статистику endpoint + operation.
+     * Исключение запроса считается ошибкой и прерывает итерацию.
+     */
+    public <T> T call(Endpoint endpoint, String operation, Supplier<T> request) {
+        var succeeded = false;
+        try {
+            var result = request.get();
+            succeeded = true;
+            return result;
+        } finally {
+            var now = System.nanoTime();
+            if (measured) {
+                stats.record(endpoint.name() + " " + operation, now - stepStartNanos, succeeded);
+            }
+            stepStartNanos = now;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.teamcity.api.load;
+
+import com.example.teamcity.api.config.Config;
+
+import java.time.Duration;
+
+/**
+ * Профиль нагрузки: прогрев с постоянной частотой warmUpRps, линейный рост до targetRps и измеряемая фаза
+ * с постоянной частотой targetRps. Частота задается в запросах в секунду.
+ */
+public record LoadProfile(double warmUpRps, double targetRps, Duration warmUp, Duration rampUp, Duration steady) {
+    public LoadProfile {
+        if (warmUpRps <= 0 || targetRps <= 0) {
+            throw new IllegalStateException("Load rate must be positive, but was: warmUp %s, target %s"
+                    .formatted(warmUpRps, targetRps));
+        }
+    }
+
+    /**
+     * Профиль из свойств loadRps, loadWarmUpRps, loadWarmUpSec, loadRampUpSec, loadSteadySec.
+     */
+    public static LoadProfile fromConfig() {
+        var targetRps = Config.getIntProperty("loadRps", 20);
+        return new LoadProfile(
+                Config.getIntProperty("loadWarmUpRps", Math.max(targetRps / 10, 1)),
+                targetRps,
+                Duration.ofSeconds(Config.getIntProperty("loadWarmUpSec", 5)),
+                Duration.ofSeconds(Config.getIntProperty("loadRampUpSec", 5)),
+                Duration.ofSeconds(Config.getIntProperty("loadSteadySec", 20)));
+    }
+
+    Duration total() {
+        return warmUp.plus(rampUp).plus(steady);
+    }
+
+    // Частота (запросов в секунду) в момент elapsed от начала прогона
+    double rpsAt(Duration elapsed) {
+        if (elapsed.compareTo(warmUp) < 0) {
+            return warmUpRps;
+        }
+        var rampElapsed = elapsed.minus(warmUp);
+        if (rampElapsed.compareTo(rampUp) < 0) {
+            return warmUpRps + (targetRps - warmUpRps) * rampElapsed.toNanos() / rampUp.toNanos();
+        }
+        return targetRps;
+    }
+
+    boolean isMeasured(Duration elapsed) {
+        return elapsed.compareTo(warmUp.plus(rampUp)) >= 0;
+    }
+}
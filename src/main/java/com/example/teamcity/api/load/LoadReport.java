@@ -0,0 +1,53 @@
+package com.example.teamcity.api.load;
+
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.qameta.allure.Allure;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Итог нагрузочного прогона по измеряемой фазе: достигнутая частота и задержки/ошибки по шагам "ENDPOINT operation".
+ * dropped - итерации, которые не поместились в очередь пула и не были отправлены.
+ */
+public record LoadReport(String scenario, double targetRps, double achievedRps, long iterations, long dropped,
+                         Map<String, StepReport> steps) {
+
+    public record StepReport(long count, long errors, double errorRate,
+                             double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+
+    /**
+     * Пишет отчет в target/load-report-&lt;scenario&gt;.json, в stdout и в Allure.
+     */
+    public void export() {
+        var path = Paths.get("target/load-report-%s.json".formatted(scenario));
+        try {
+            var json = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(this);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, json, StandardCharsets.UTF_8);
+            System.out.println(this);
+            Allure.addAttachment("Load report: " + scenario, "application/json", json, ".json");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize load report", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write load report to " + path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        var table = new StringBuilder("Load scenario %s: target %.1f rps, achieved %.1f rps, %d iterations, %d dropped%n"
+                .formatted(scenario, targetRps, achievedRps, iterations, dropped));
+        table.append("%-24s %8s %8s %10s %10s %10s%n".formatted("step", "count", "errors", "p50 ms", "p99 ms", "p999 ms"));
+        steps.forEach((step, report) -> table.append("%-24s %8d %7.2f%% %10.1f %10.1f %10.1f%n".formatted(
+                step, report.count(), report.errorRate() * 100, report.p50Ms(), report.p99Ms(), report.p999Ms())));
+        return table.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.teamcity.api.load;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.generators.TestDataStorage;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон сценария по открытой модели: итерации запускаются по расписанию с заданной частотой
+ * независимо от того, завершились ли предыдущие. Поэтому медленный сервер не снижает нагрузку,
+ * а задержки считаются от запланированного времени (см. LoadIteration).
+ * <p>
+ * Виртуальных потоков в Java 17 нет, поэтому итерации выполняются в ограниченном пуле (свойство loadThreads)
+ * с очередью loadQueueCapacity. Итерации, не поместившиеся в очередь, не отправляются и считаются в dropped.
+ * <p>
+ * Сущности, созданные итерациями, попадают в реестр вызывающего потока (TestDataStorage), так что то,
+ * что сценарий не удалил сам, удаляется после теста как обычно.
+ */
+public final class LoadRunner {
+    private static final int THREADS = Config.getIntProperty("loadThreads", 64);
+    private static final int QUEUE_CAPACITY = Config.getIntProperty("loadQueueCapacity", 10_000);
+    private static final int SHUTDOWN_TIMEOUT_SEC = Config.getIntProperty("loadShutdownTimeoutSec", 60);
+
+    private LoadRunner() {
+    }
+
+    public static LoadReport run(LoadScenario scenario, LoadProfile profile) {
+        var stats = new LoadStats();
+        var storage = TestDataStorage.getStorage();
+        var executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new NamedThreadFactory("load-" + scenario.name()));
+        var totalNanos = profile.total().toNanos();
+        var measuredIterations = 0L;
+        var start = System.nanoTime();
+        try {
+            for (var elapsed = 0L; elapsed < totalNanos; ) {
+                var intendedStart = start + elapsed;
+                var measured = profile.isMeasured(Duration.ofNanos(elapsed));
+                waitUntil(intendedStart);
+                try {
+                    executor.execute(() -> runIteration(scenario, storage,
+                            new LoadIteration(stats, measured, intendedStart)));
+                    if (measured) {
+                        measuredIterations++;
+                    }
+                } catch (RejectedExecutionException e) {
+                    if (measured) {
+                        stats.dropped();
+                    }
+                }
+                var iterationsPerSecond = profile.rpsAt(Duration.ofNanos(elapsed)) / scenario.requestsPerIteration();
+                elapsed += Math.max((long) (TimeUnit.SECONDS.toNanos(1) / iterationsPerSecond), 1);
+            }
+        } finally {
+            awaitIterations(executor);
+        }
+        var steps = stats.toReport();
+        var requests = steps.values().stream().mapToLong(LoadReport.StepReport::count).sum();
+        var steadySeconds = profile.steady().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        return new LoadReport(scenario.name(), profile.targetRps(), requests / steadySeconds,
+                measuredIterations, stats.getDropped(), steps);
+    }
+
+    private static void runIteration(LoadScenario scenario, TestDataStorage storage, LoadIteration iteration) {
+        try {
+            storage.callBound(() -> {
+                scenario.body().accept(iteration);
+                return null;
+            });
+        } catch (Exception | AssertionError e) {
+            // Ошибка уже записана в статистику шага, итерация просто прерывается.
+            // Exception, а не RuntimeException: RestAssured пробрасывает IOException без объявления
+        }
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void awaitIterations(ThreadPoolExecutor executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                System.err.printf("Load iterations did not finish in %d s and were interrupted%n", SHUTDOWN_TIMEOUT_SEC);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
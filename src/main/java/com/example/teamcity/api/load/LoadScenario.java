@@ -0,0 +1,15 @@
+package com.example.teamcity.api.load;
+
+import java.util.function.Consumer;
+
+/**
+ * Сценарий нагрузки: одна итерация - последовательность зависимых запросов, каждый из которых обернут
+ * в {@link LoadIteration#call}. requestsPerIteration нужен, чтобы пересчитать частоту запросов в частоту итераций.
+ */
+public record LoadScenario(String name, int requestsPerIteration, Consumer<LoadIteration> body) {
+    public LoadScenario {
+        if (requestsPerIteration <= 0) {
+            throw new IllegalStateException("Scenario %s must send at least one request".formatted(name));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.teamcity.api.load;
+
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.requests.CheckedRequests;
+
+import static com.example.teamcity.api.enums.Endpoint.BUILD_TYPES;
+import static com.example.teamcity.api.enums.Endpoint.PROJECTS;
+import static com.example.teamcity.api.generators.TestDataGenerator.generate;
+
+/**
+ * Готовые сценарии нагрузки.
+ */
+public final class LoadScenarios {
+    private LoadScenarios() {
+    }
+
+    /**
+     * Создание проекта и build type, чтение build type и удаление проекта (build type удаляется каскадно).
+     */
+    public static LoadScenario projectBuildTypeCrud(CheckedRequests requests) {
+        return new LoadScenario("projectBuildTypeCrud", 4, iteration -> {
+            var testData = generate();
+            iteration.call(PROJECTS, "create", () -> requests.<Project>getRequest(PROJECTS).create(testData.getProject()));
+            iteration.call(BUILD_TYPES, "create", () -> requests.<BuildType>getRequest(BUILD_TYPES).create(testData.getBuildType()));
+            iteration.call(BUILD_TYPES, "read", () -> requests.<BuildType>getRequest(BUILD_TYPES).read("id:" + testData.getBuildType().getId()));
+            iteration.call(PROJECTS, "delete", () -> requests.getRequest(PROJECTS).delete("id:" + testData.getProject().getId()));
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.teamcity.api.load;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки шагов измеряемой фазы по ключу "ENDPOINT operation".
+ */
+final class LoadStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private final Map<String, StepStats> steps = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(String step, long latencyNanos, boolean succeeded) {
+        var stats = steps.computeIfAbsent(step, key -> new StepStats());
+        stats.recorder.recordValue(latencyNanos);
+        if (!succeeded) {
+            stats.errors.increment();
+        }
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    Map<String, LoadReport.StepReport> toReport() {
+        var report = new TreeMap<String, LoadReport.StepReport>();
+        steps.forEach((step, stats) -> {
+            var histogram = stats.recorder.getIntervalHistogram();
+            var count = histogram.getTotalCount();
+            var errors = stats.errors.sum();
+            report.put(step, new LoadReport.StepReport(count, errors, count == 0 ? 0 : (double) errors / count,
+                    toMillis(histogram.getValueAtPercentile(50)),
+                    toMillis(histogram.getValueAtPercentile(99)),
+                    toMillis(histogram.getValueAtPercentile(99.9)),
+                    toMillis(histogram.getMaxValue())));
+        });
+        return report;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class StepStats {
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.teamcity.api.logging;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Заменяет RequestLoggingFilter и ResponseLoggingFilter в режиме requestLogging=onFailure:
+ * сохраняет обмен в RequestLog вместо печати. Ответ хранится ссылкой и форматируется только при выводе.
+ */
+public class BufferingLoggingFilter implements Filter {
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        var response = ctx.next(requestSpec, responseSpec);
+        RequestLog.add(new RequestLog.Exchange(requestSpec.getMethod(), requestSpec.getURI(),
+                requestSpec.getHeaders(), requestSpec.getBody(), response));
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.teamcity.api.logging;
+
+import com.example.teamcity.api.config.Config;
+import io.qameta.allure.Allure;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Буфер запросов и ответов текущего теста для режима requestLogging=onFailure.
+ * <p>
+ * Вместо синхронной печати каждого запроса в stdout обмен сохраняется ссылками в кольцевой буфер потока
+ * (не больше requestLogBufferSize последних обменов) и форматируется, только если тест упал.
+ * У прошедших тестов буфер просто очищается. Запросы, которые тест отправляет из пулов потоков
+ * (асинхронные, пакетные, очистка), пишутся в буфер теста через {@link #bind(Supplier)}.
+ */
+public final class RequestLog {
+    private static final boolean ON_FAILURE_ONLY = "onFailure".equalsIgnoreCase(Config.getProperty("requestLogging"));
+    private static final int BUFFER_SIZE = Config.getIntProperty("requestLogBufferSize", 50);
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    private RequestLog() {
+    }
+
+    public static boolean isOnFailureOnly() {
+        return ON_FAILURE_ONLY;
+    }
+
+    static void add(Exchange exchange) {
+        BUFFER.get().add(exchange);
+    }
+
+    /**
+     * Оборачивает action так, чтобы запросы, отправленные из него в другом потоке, попали в буфер текущего потока.
+     */
+    public static <R> Supplier<R> bind(Supplier<R> action) {
+        var buffer = BUFFER.get();
+        return () -> {
+            var previous = BUFFER.get();
+            BUFFER.set(buffer);
+            try {
+                return action.get();
+            } finally {
+                BUFFER.set(previous);
+            }
+        };
+    }
+
+    public static Runnable bind(Runnable action) {
+        var bound = bind(() -> {
+            action.run();
+            return null;
+        });
+        return bound::get;
+    }
+
+    public static void clear() {
+        BUFFER.get().clear();
+    }
+
+    /**
+     * Печатает накопленные запросы и ответы в stdout и прикладывает их к Allure, затем очищает буфер.
+     */
+    public static void dump() {
+        var exchanges = BUFFER.get().drain();
+        if (exchanges.isEmpty()) {
+            return;
+        }
+        var log = new StringBuilder();
+        exchanges.forEach(exchange -> exchange.appendTo(log));
+        System.out.println(log);
+        Allure.addAttachment("Requests and responses", "text/plain", log.toString(), ".log");
+    }
+
+    // Буфер потока теста, в него же пишут потоки пулов (см. bind)
+    private static final class Buffer {
+        private final Deque<Exchange> exchanges = new ArrayDeque<>();
+
+        private synchronized void add(Exchange exchange) {
+            if (exchanges.size() == BUFFER_SIZE) {
+                exchanges.removeFirst();
+            }
+            exchanges.addLast(exchange);
+        }
+
+        private synchronized void clear() {
+            exchanges.clear();
+        }
+
+        private synchronized List<Exchange> drain() {
+            var drained = List.copyOf(exchanges);
+            exchanges.clear();
+            return drained;
+        }
+    }
+
+    record Exchange(String method, String uri, Headers requestHeaders, Object requestBody, Response response) {
+        private void appendTo(StringBuilder log) {
+            log.append("Request method:\t").append(method).append('\n')
+                    .append("Request URI:\t").append(uri).append('\n')
+                    .append("Headers:\t").append(requestHeaders).append('\n')
+                    .append("Body:\n").append(requestBody == null ? "<none>" : requestBody).append("\n\n")
+                    .append(response.getStatusLine()).append('\n')
+                    .append(response.getHeaders()).append('\n')
+                    .append(response.asString()).append("\n\n");
+        }
+    }
+}
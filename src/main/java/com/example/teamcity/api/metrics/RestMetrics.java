@@ -0,0 +1,132 @@
+package com.example.teamcity.api.metrics;
+
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.qameta.allure.Allure;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики REST-запросов по эндпоинтам и HTTP-методам: гистограмма задержек (HdrHistogram),
+ * количество ответов по статусам, байты запросов и ответов.
+ * <p>
+ * Запись не берет блокировок: Recorder и LongAdder wait-free, а ConcurrentHashMap.get не блокирует.
+ * Записанные значения переносятся в накопленные гистограммы только при снятии снимка ({@link #snapshot()}).
+ */
+public final class RestMetrics {
+    private static final Path REPORT_PATH = Paths.get("target/rest-metrics.json");
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final Map<Key, Stats> STATS = new ConcurrentHashMap<>();
+
+    private RestMetrics() {
+    }
+
+    static void record(String endpoint, String method, long latencyNanos, int statusCode, long bytesOut, long bytesIn) {
+        var key = new Key(endpoint, method);
+        var stats = STATS.get(key);
+        if (stats == null) {
+            stats = STATS.computeIfAbsent(key, k -> new Stats());
+        }
+        stats.recorder.recordValue(latencyNanos);
+        stats.statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        stats.bytesOut.add(bytesOut);
+        stats.bytesIn.add(bytesIn);
+    }
+
+    /**
+     * Снимок метрик с начала прогона: "ENDPOINT METHOD" -> копия накопленной гистограммы задержек (в наносекундах).
+     */
+    public static Map<String, Histogram> snapshot() {
+        var snapshot = new TreeMap<String, Histogram>();
+        STATS.forEach((key, stats) -> snapshot.put(key.toString(), stats.accumulate().copy()));
+        return snapshot;
+    }
+
+    /**
+     * Количество ответов по статусам с начала прогона: "ENDPOINT METHOD" -> (статус -> количество).
+     */
+    public static Map<String, Map<Integer, Long>> statusCounts() {
+        var counts = new TreeMap<String, Map<Integer, Long>>();
+        STATS.forEach((key, stats) -> {
+            var byStatus = new TreeMap<Integer, Long>();
+            stats.statusCodes.forEach((code, count) -> byStatus.put(code, count.sum()));
+            counts.put(key.toString(), byStatus);
+        });
+        return counts;
+    }
+
+    /**
+     * Пишет отчет в target/rest-metrics.json и прикладывает его к Allure-отчету.
+     */
+    public static void export() {
+        var report = new TreeMap<String, Object>();
+        STATS.forEach((key, stats) -> report.put(key.toString(), stats.toReport()));
+        try {
+            var json = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+            Files.createDirectories(REPORT_PATH.getParent());
+            Files.writeString(REPORT_PATH, json, StandardCharsets.UTF_8);
+            Allure.addAttachment("REST metrics", "application/json", json, ".json");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize REST metrics", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write REST metrics to " + REPORT_PATH, e);
+        }
+    }
+
+    private record Key(String endpoint, String method) {
+        @Override
+        public String toString() {
+            return endpoint + " " + method;
+        }
+    }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final Histogram accumulated = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram interval;
+
+        private synchronized Histogram accumulate() {
+            interval = recorder.getIntervalHistogram(interval);
+            accumulated.add(interval);
+            return accumulated;
+        }
+
+        private synchronized Map<String, Object> toReport() {
+            var histogram = accumulate();
+            var report = new LinkedHashMap<String, Object>();
+            report.put("count", histogram.getTotalCount());
+            report.put("meanMs", toMillis(histogram.getMean()));
+            report.put("p50Ms", toMillis(histogram.getValueAtPercentile(50)));
+            report.put("p90Ms", toMillis(histogram.getValueAtPercentile(90)));
+            report.put("p99Ms", toMillis(histogram.getValueAtPercentile(99)));
+            report.put("p999Ms", toMillis(histogram.getValueAtPercentile(99.9)));
+            report.put("maxMs", toMillis(histogram.getMaxValue()));
+            var byStatus = new TreeMap<Integer, Long>();
+            statusCodes.forEach((code, count) -> byStatus.put(code, count.sum()));
+            report.put("statusCodes", byStatus);
+            report.put("bytesOut", bytesOut.sum());
+            report.put("bytesIn", bytesIn.sum());
+            return report;
+        }
+
+        private static double toMillis(double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
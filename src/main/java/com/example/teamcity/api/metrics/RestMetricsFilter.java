@@ -0,0 +1,98 @@
+package com.example.teamcity.api.metrics;
+
+import com.example.teamcity.api.enums.Endpoint;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+
+/**
+ * Фильтр, записывающий метрики каждого запроса в RestMetrics.
+ * <p>
+ * Должен стоять последним в цепочке фильтров, чтобы в задержку не попадало время других фильтров
+ * (логирования, Allure, swagger-coverage).
+ */
+public class RestMetricsFilter implements Filter {
+    private static final String OTHER_ENDPOINT = "OTHER";
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        var start = System.nanoTime();
+        var response = ctx.next(requestSpec, responseSpec);
+        var latency = System.nanoTime() - start;
+        RestMetrics.record(endpointOf(requestSpec.getURI()), requestSpec.getMethod(), latency,
+                response.getStatusCode(), requestSize(requestSpec), responseSize(response));
+        return response;
+    }
+
+    // Эндпоинт по самому длинному совпавшему префиксу пути
+    private static String endpointOf(String uri) {
+        var path = URI.create(uri).getRawPath();
+        Endpoint matched = null;
+        for (var endpoint : Endpoint.values()) {
+            if (path.startsWith(endpoint.getUrl())
+                    && (matched == null || endpoint.getUrl().length() > matched.getUrl().length())) {
+                matched = endpoint;
+            }
+        }
+        return matched == null ? OTHER_ENDPOINT : matched.name();
+    }
+
+    private static long requestSize(FilterableRequestSpecification requestSpec) {
+        var contentLength = contentLength(requestSpec.getHeaders().getValue("Content-Length"));
+        if (contentLength >= 0) {
+            return contentLength;
+        }
+        Object body = requestSpec.getBody();
+        if (body == null) {
+            return 0;
+        }
+        if (body instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        return utf8Length(body instanceof CharSequence chars ? chars : body.toString());
+    }
+
+    private static long responseSize(Response response) {
+        var contentLength = contentLength(response.getHeader("Content-Length"));
+        return contentLength >= 0 ? contentLength : response.asByteArray().length;
+    }
+
+    // -1, если заголовка нет или он некорректный - тогда размер считается по телу
+    private static long contentLength(String header) {
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Длина тела в UTF-8 без копирования строки в массив байт
+    static long utf8Length(CharSequence chars) {
+        long length = 0;
+        for (var i = 0; i < chars.length(); i++) {
+            var c = chars.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars.length() && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат кодируется как '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
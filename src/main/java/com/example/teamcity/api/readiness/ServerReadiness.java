@@ -0,0 +1,119 @@
+package com.example.teamcity.api.readiness;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.replay.RecordReplayFilter;
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.example.teamcity.api.spec.Specifications;
+import com.example.teamcity.api.utils.Backoff;
+import com.example.teamcity.api.utils.Poller;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Ожидание готовности TeamCity по HTTP вместо ожидания элементов страницы.
+ * <p>
+ * Веб-интерфейс отвечает, когда корневая страница приходит без 5xx: пока сервер стартует, TeamCity отдает
+ * страницу обслуживания (maintenance) со статусом 503. Это проверка уровня HTTP: элементы страницы после нее
+ * могут появиться не сразу, и страницы ждут их с прежними таймаутами. REST API готов, когда GET /app/rest/server
+ * от super user отвечает 200; при воспроизведении HTTP-обменов (httpMode=replay) сервер не нужен, и проверка
+ * пропускается. Проверки повторяются с экспоненциальной задержкой и jitter
+ * (readinessInitialDelayMs, readinessMaxDelayMs) не дольше readinessTimeoutSec.
+ * <p>
+ * Готовность проверяется один раз за прогон. Время ожидания и число попыток печатаются
+ * и пишутся в target/server-readiness.json.
+ */
+public final class ServerReadiness {
+    private static final Path REPORT_PATH = Paths.get("target/server-readiness.json");
+    private static final String SERVER_PATH = "/app/rest/server";
+    private static final Duration TIMEOUT = Duration.ofSeconds(Config.getIntProperty("readinessTimeoutSec", 300));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Backoff BACKOFF = Backoff.fromConfig("readiness", 200, 5_000);
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(REQUEST_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    // Проверка -> время ожидания; уже пройденные проверки повторно не выполняются
+    private static final Map<String, Map<String, Object>> READY = new ConcurrentHashMap<>();
+
+    private ServerReadiness() {
+    }
+
+    /**
+     * Ждет, пока веб-интерфейс начнет отвечать без 5xx (в том числе страницей первого запуска).
+     */
+    public static void awaitWebUi() {
+        await("web UI", () -> {
+            var response = send(HttpRequest.newBuilder(URI.create("http://" + Config.getProperty("host") + "/")));
+            return response.statusCode() < 500 ? response.statusCode() : null;
+        });
+    }
+
+    /**
+     * Ждет, пока REST API начнет обрабатывать запросы super user.
+     */
+    public static void awaitRestApi() {
+        if (RecordReplayFilter.isReplay()) {
+            return;
+        }
+        await("REST API", () -> {
+            var host = Specifications.host();
+            var credentials = Base64.getEncoder().encodeToString(
+                    (":" + Config.getProperty("superUserToken")).getBytes(StandardCharsets.UTF_8));
+            var response = send(HttpRequest.newBuilder(URI.create("http://" + host + SERVER_PATH))
+                    .header("Authorization", "Basic " + credentials)
+                    .header("Accept", "application/json"));
+            return response.statusCode() == 200 ? response.statusCode() : null;
+        });
+    }
+
+    private static synchronized void await(String probe, Supplier<Integer> check) {
+        if (READY.containsKey(probe)) {
+            return;
+        }
+        var result = Poller.poll("TeamCity " + probe + " readiness", TIMEOUT, BACKOFF, check);
+        System.out.printf("TeamCity %s is ready after %d ms (%d attempts)%n",
+                probe, result.waited().toMillis(), result.attempts());
+        READY.put(probe, Map.of("waitedMs", result.waited().toMillis(), "attempts", result.attempts()));
+        export();
+    }
+
+    private static HttpResponse<Void> send(HttpRequest.Builder request) {
+        try {
+            return CLIENT.send(request.timeout(REQUEST_TIMEOUT).GET().build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            // Сервер еще не слушает порт или оборвал соединение при старте
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking TeamCity readiness", e);
+        }
+    }
+
+    private static void export() {
+        try {
+            var json = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(new TreeMap<>(READY));
+            Files.createDirectories(REPORT_PATH.getParent());
+            Files.writeString(REPORT_PATH, json, StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize server readiness report", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write server readiness report to " + REPORT_PATH, e);
+        }
+    }
+}
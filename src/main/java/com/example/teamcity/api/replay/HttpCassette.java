@@ -0,0 +1,276 @@
+package com.example.teamcity.api.replay;
+
+import io.restassured.http.Header;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Файл записанных HTTP-обменов.
+ * <p>
+ * Формат: заголовок (магическое число, версия, seed тестовых данных), затем ответы друг за другом
+ * ([маркер][длина][ключ запроса][статус][строка статуса][заголовки][тело]), затем индекс "ключ запроса -> смещения
+ * ответов в порядке записи" и смещение индекса в последних 8 байтах. При воспроизведении в память читается только
+ * индекс, ответы читаются с диска позиционным чтением по мере запросов, поэтому файл может быть большим.
+ * <p>
+ * Индекс пишется в конце прогона ({@link #checkpoint()}) и при закрытии; следующая запись ответа затирает его.
+ * Если индекса нет или он затерт (прогон прервали), при открытии индекс восстанавливается по маркерам ответов.
+ */
+final class HttpCassette implements AutoCloseable {
+    private static final int MAGIC = 0x54435252;
+    private static final int VERSION = 2;
+    private static final int RECORD_MAGIC = 0x52455350;
+    private static final int INDEX_MAGIC = 0x49445858;
+    private static final int HEADER_LENGTH = Integer.BYTES * 2 + Long.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long seed;
+    private final boolean recording;
+    // Запись: ключ -> смещения в порядке записи; воспроизведение: ключ -> еще не выданные смещения
+    private final Map<String, List<Long>> recorded = new LinkedHashMap<>();
+    private final Map<String, Queue<Long>> remaining = new HashMap<>();
+    private long position;
+    private boolean closed;
+
+    private HttpCassette(Path path, FileChannel channel, long seed, boolean recording) {
+        this.path = path;
+        this.channel = channel;
+        this.seed = seed;
+        this.recording = recording;
+    }
+
+    static HttpCassette record(Path path, long seed) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            var cassette = new HttpCassette(path, channel, seed, true);
+            var header = new ByteArrayOutputStream();
+            var out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            cassette.write(header.toByteArray());
+            return cassette;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create HTTP cassette " + path, e);
+        }
+    }
+
+    static HttpCassette open(Path path) {
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.READ);
+            var cassette = new HttpCassette(path, channel, readHeader(channel, path), false);
+            if (!cassette.readIndex()) {
+                cassette.scanRecords();
+                System.err.printf("HTTP cassette %s has no index (recording was interrupted), "
+                        + "recovered %d recorded request keys%n", path, cassette.remaining.size());
+            }
+            return cassette;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read HTTP cassette " + path, e);
+        }
+    }
+
+    private static long readHeader(FileChannel channel, Path path) throws IOException {
+        var header = read(channel, 0, HEADER_LENGTH);
+        if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+            throw new IllegalStateException("File %s is not an HTTP cassette of version %d".formatted(path, VERSION));
+        }
+        return header.readLong();
+    }
+
+    // Читает индекс по смещению из последних 8 байт; false, если индекса нет или он затерт новыми ответами
+    private boolean readIndex() throws IOException {
+        var size = channel.size();
+        if (size < HEADER_LENGTH + Integer.BYTES + Long.BYTES) {
+            return false;
+        }
+        var indexOffset = read(channel, size - Long.BYTES, Long.BYTES).readLong();
+        if (indexOffset < HEADER_LENGTH || indexOffset > size - Long.BYTES - Integer.BYTES) {
+            return false;
+        }
+        var index = read(channel, indexOffset, (int) (size - Long.BYTES - indexOffset));
+        if (index.readInt() != INDEX_MAGIC) {
+            return false;
+        }
+        var keys = index.readInt();
+        for (var i = 0; i < keys; i++) {
+            var key = index.readUTF();
+            var offsets = new ConcurrentLinkedQueue<Long>();
+            for (var count = index.readInt(); count > 0; count--) {
+                offsets.add(index.readLong());
+            }
+            remaining.put(key, offsets);
+        }
+        return true;
+    }
+
+    // Проходит ответы от заголовка до первого места без маркера или до оборванной записи
+    private void scanRecords() throws IOException {
+        var size = channel.size();
+        var offset = (long) HEADER_LENGTH;
+        while (offset + Integer.BYTES * 2 <= size) {
+            var prefix = read(channel, offset, Integer.BYTES * 2);
+            var length = prefix.readInt() == RECORD_MAGIC ? prefix.readInt() : -1;
+            if (length < 0 || offset + Integer.BYTES * 2 + length > size) {
+                return;
+            }
+            var key = read(channel, offset + Integer.BYTES * 2, length).readUTF();
+            remaining.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>()).add(offset);
+            offset += Integer.BYTES * 2 + length;
+        }
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    synchronized void append(String key, RecordedResponse response) {
+        if (closed) {
+            return;
+        }
+        try {
+            var payload = new ByteArrayOutputStream();
+            var out = new DataOutputStream(payload);
+            out.writeUTF(key);
+            out.writeInt(response.statusCode());
+            out.writeUTF(response.statusLine());
+            out.writeShort(response.headers().size());
+            for (var header : response.headers()) {
+                out.writeUTF(header.getName());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(response.body().length);
+            out.write(response.body());
+            recorded.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+            var record = ByteBuffer.allocate(Integer.BYTES * 2 + payload.size());
+            record.putInt(RECORD_MAGIC).putInt(payload.size()).put(payload.toByteArray()).flip();
+            write(record.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write HTTP cassette " + path, e);
+        }
+    }
+
+    /**
+     * Следующий записанный ответ на запрос с этим ключом или null, если записанные ответы закончились.
+     */
+    RecordedResponse next(String key) {
+        var offsets = remaining.get(key);
+        var offset = offsets == null ? null : offsets.poll();
+        if (offset == null) {
+            return null;
+        }
+        try {
+            var length = read(channel, offset + Integer.BYTES, Integer.BYTES).readInt();
+            var in = read(channel, offset + Integer.BYTES * 2, length);
+            in.readUTF();
+            var statusCode = in.readInt();
+            var statusLine = in.readUTF();
+            var headers = new ArrayList<Header>();
+            for (var count = in.readShort(); count > 0; count--) {
+                headers.add(new Header(in.readUTF(), in.readUTF()));
+            }
+            var body = new byte[in.readInt()];
+            in.readFully(body);
+            return new RecordedResponse(statusCode, statusLine, headers, body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read HTTP cassette " + path, e);
+        }
+    }
+
+    /**
+     * При записи дописывает индекс после последнего ответа, не сдвигая позицию записи: следующий ответ его затрет,
+     * а новый индекс запишет следующий вызов или {@link #close()}.
+     */
+    synchronized void checkpoint() {
+        if (closed || !recording) {
+            return;
+        }
+        try {
+            writeIndex();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write HTTP cassette index " + path, e);
+        }
+    }
+
+    /**
+     * При записи дописывает индекс и закрывает файл. Повторные вызовы ничего не делают.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (channel) {
+            if (recording) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close HTTP cassette " + path, e);
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        var index = new ByteArrayOutputStream();
+        var out = new DataOutputStream(index);
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(recorded.size());
+        for (var entry : recorded.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (var offset : entry.getValue()) {
+                out.writeLong(offset);
+            }
+        }
+        out.writeLong(position);
+        var end = write(index.toByteArray(), position);
+        channel.truncate(end);
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        position = write(bytes, position);
+    }
+
+    private long write(byte[] bytes, long offset) throws IOException {
+        var buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+        return offset;
+    }
+
+    private static DataInputStream read(FileChannel channel, long offset, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of HTTP cassette");
+            }
+        }
+        return new DataInputStream(new ByteArrayInputStream(buffer.array()));
+    }
+
+    record RecordedResponse(int statusCode, String statusLine, List<Header> headers, byte[] body) {
+    }
+}
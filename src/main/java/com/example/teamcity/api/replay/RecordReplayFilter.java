@@ -0,0 +1,164 @@
+package com.example.teamcity.api.replay;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.generators.UniqueIdAllocator;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Запись и воспроизведение HTTP-обменов (свойство httpMode).
+ * <p>
+ * httpMode=record - запросы идут на сервер, ответы записываются в файл httpCassette
+ * (по умолчанию target/http-cassette.bin, см. HttpCassette). httpMode=replay - сеть не используется,
+ * ответы берутся из файла. Ключ запроса - метод, путь с query, имя пользователя и хеш тела; на одинаковые
+ * запросы ответы выдаются в порядке записи.
+ * <p>
+ * Тела запросов содержат сгенерированные id, поэтому воспроизведение возможно только с тем же seed тестовых данных
+ * (см. UniqueIdAllocator): seed хранится в файле, и при воспроизведении фильтр передает его аллокатору
+ * ({@link UniqueIdAllocator#useSeed(long)}), если seed не задан явно. Фильтр создается вместе со спецификациями,
+ * то есть до генерации тестовых данных. Порядок генерации должен совпадать с записью, поэтому записывать и воспроизводить нужно однопоточный прогон.
+ * <p>
+ * Фильтр стоит последним: при воспроизведении он заменяет собой сеть, а остальные фильтры (логирование, Allure,
+ * метрики) работают как обычно.
+ */
+public final class RecordReplayFilter implements Filter {
+    private static final String MODE_PROPERTY = "httpMode";
+    private static final String SEED_PROPERTY = "testDataSeed";
+    private static final String RECORD = "record";
+    private static final String REPLAY = "replay";
+    private static final String ANONYMOUS = "<anonymous>";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final HexFormat HEX = HexFormat.of();
+    private static volatile RecordReplayFilter instance;
+
+    private final boolean replay;
+    private final HttpCassette cassette;
+
+    private RecordReplayFilter(boolean replay, HttpCassette cassette) {
+        this.replay = replay;
+        this.cassette = cassette;
+    }
+
+    public static boolean isEnabled() {
+        var mode = Config.getProperty(MODE_PROPERTY);
+        return RECORD.equalsIgnoreCase(mode) || REPLAY.equalsIgnoreCase(mode);
+    }
+
+    public static boolean isReplay() {
+        return REPLAY.equalsIgnoreCase(Config.getProperty(MODE_PROPERTY));
+    }
+
+    public static synchronized RecordReplayFilter get() {
+        if (instance == null) {
+            instance = create();
+        }
+        return instance;
+    }
+
+    /**
+     * Дописывает индекс записанного файла, не закрывая его. Вызывается в @AfterSuite после очистки тестовых данных,
+     * чтобы файл читался, даже если shutdown hook ({@link #finish()}) не выполнится.
+     */
+    public static synchronized void checkpoint() {
+        if (instance != null) {
+            instance.cassette.checkpoint();
+        }
+    }
+
+    /**
+     * Дописывает индекс записанного файла и закрывает его. Вызывается из shutdown hook, то есть после всех запросов
+     * прогона.
+     */
+    public static synchronized void finish() {
+        if (instance != null) {
+            instance.cassette.close();
+        }
+    }
+
+    private static Path cassettePath() {
+        return Paths.get(Config.getProperty("httpCassette") == null
+                ? "target/http-cassette.bin"
+                : Config.getProperty("httpCassette"));
+    }
+
+    private static RecordReplayFilter create() {
+        var path = cassettePath();
+        RecordReplayFilter filter;
+        if (isReplay()) {
+            var cassette = HttpCassette.open(path);
+            if (Config.getProperty(SEED_PROPERTY) == null) {
+                UniqueIdAllocator.useSeed(cassette.getSeed());
+            }
+            if (UniqueIdAllocator.getSeed() != cassette.getSeed()) {
+                throw new IllegalStateException("HTTP cassette %s was recorded with -D%s=%d, but current seed is %d"
+                        .formatted(path, SEED_PROPERTY, cassette.getSeed(), UniqueIdAllocator.getSeed()));
+            }
+            filter = new RecordReplayFilter(true, cassette);
+        } else {
+            filter = new RecordReplayFilter(false, HttpCassette.record(path, UniqueIdAllocator.getSeed()));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(RecordReplayFilter::finish, "http-cassette-finish"));
+        return filter;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        var key = keyOf(requestSpec);
+        if (replay) {
+            var recorded = cassette.next(key);
+            if (recorded == null) {
+                throw new IllegalStateException("No recorded response left for request " + key);
+            }
+            var headers = new Headers(recorded.headers());
+            var builder = new ResponseBuilder()
+                    .setStatusCode(recorded.statusCode())
+                    .setStatusLine(recorded.statusLine())
+                    .setHeaders(headers)
+                    .setBody(recorded.body());
+            // ResponseBuilder не берет тип содержимого из заголовков, а без него RestAssured не разберет тело
+            if (headers.hasHeaderWithName(CONTENT_TYPE)) {
+                builder.setContentType(headers.getValue(CONTENT_TYPE));
+            }
+            return builder.build();
+        }
+        var response = ctx.next(requestSpec, responseSpec);
+        cassette.append(key, new HttpCassette.RecordedResponse(response.getStatusCode(), response.getStatusLine(),
+                response.getHeaders().asList(), response.asByteArray()));
+        return response;
+    }
+
+    // Хост и пароль в ключ не входят: при воспроизведении сервер может быть другим
+    private static String keyOf(FilterableRequestSpecification requestSpec) {
+        var uri = URI.create(requestSpec.getURI());
+        var userInfo = uri.getRawUserInfo();
+        var username = userInfo == null ? ANONYMOUS : userInfo.substring(0, Math.max(userInfo.indexOf(':'), 0));
+        var pathAndQuery = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+        return requestSpec.getMethod() + " " + pathAndQuery + " " + username + " " + bodyHash(requestSpec.getBody());
+    }
+
+    private static String bodyHash(Object body) {
+        if (body == null) {
+            return "-";
+        }
+        var bytes = body instanceof byte[] raw ? raw : body.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
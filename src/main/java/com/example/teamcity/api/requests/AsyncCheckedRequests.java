@@ -0,0 +1,22 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.requests.checked.AsyncCheckedBase;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.EnumMap;
+
+public class AsyncCheckedRequests {
+    private final EnumMap<Endpoint, AsyncCheckedBase> requests = new EnumMap<>(Endpoint.class);
+
+    public AsyncCheckedRequests(RequestSpecification spec) {
+        for (var endpoint: Endpoint.values()) {
+            requests.put(endpoint, new AsyncCheckedBase(spec, endpoint));
+        }
+    }
+
+    public <T extends BaseModel> AsyncCheckedBase<T> getRequest(Endpoint endpoint) {
+        return (AsyncCheckedBase<T>) requests.get(endpoint);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.teamcity.api.requests;
+
+/**
+ * Результат одного элемента пакетного запроса: значение при успехе или ошибка при неудаче.
+ */
+public record BatchResult<T>(T value, Throwable error) {
+    static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    static <T> BatchResult<T> failure(Throwable error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.generators.TestDataStorage;
+import com.example.teamcity.api.logging.RequestLog;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Выполняет action для каждого элемента с ограничением параллельности.
+ * <p>
+ * Результаты возвращаются в порядке элементов, ошибка одного элемента не прерывает остальные.
+ * Сущности, созданные в action, регистрируются в TestDataStorage вызывающего теста.
+ * <p>
+ * Все пакеты выполняются в одном пуле из batchThreads потоков. Ограничение concurrency соблюдается без блокировок:
+ * на пакет запускается не больше concurrency обработчиков, каждый из которых по очереди берет следующий элемент.
+ * Поэтому action не должен сам запускать пакеты и ждать их: обработчики внешнего пакета могут занять весь пул.
+ */
+final class BatchRunner {
+    static final int DEFAULT_CONCURRENCY = Config.getIntProperty("batchConcurrency", 8);
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Config.getIntProperty("batchThreads", DEFAULT_CONCURRENCY),
+            new NamedThreadFactory("batch-requests"));
+
+    private BatchRunner() {
+    }
+
+    static <I, R> List<BatchResult<R>> run(Collection<? extends I> items, int concurrency, Function<I, R> action) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        var storage = TestDataStorage.getStorage();
+        var input = List.<I>copyOf(items);
+        var results = new ArrayList<BatchResult<R>>(input.size());
+        input.forEach(item -> results.add(null));
+        var next = new AtomicInteger();
+        var workers = new ArrayList<CompletableFuture<Void>>();
+        for (var i = 0; i < Math.min(concurrency, input.size()); i++) {
+            workers.add(CompletableFuture.runAsync(RequestLog.bind(() -> {
+                for (var index = next.getAndIncrement(); index < input.size(); index = next.getAndIncrement()) {
+                    var item = input.get(index);
+                    BatchResult<R> result;
+                    try {
+                        result = BatchResult.success(storage.callBound(() -> action.apply(item)));
+                    } catch (RuntimeException | AssertionError e) {
+                        result = BatchResult.failure(e);
+                    }
+                    // Каждый обработчик пишет в свои индексы, а join ниже публикует записи вызывающему потоку
+                    results.set(index, result);
+                }
+            }), EXECUTOR));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        return List.copyOf(results);
+    }
+}
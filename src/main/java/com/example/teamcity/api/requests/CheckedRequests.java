@@ -3,10 +3,13 @@ package com.example.teamcity.api.requests;
 import com.example.teamcity.api.enums.Endpoint;
 import com.example.teamcity.api.models.BaseModel;
 import com.example.teamcity.api.requests.checked.CheckedBase;
+import com.example.teamcity.api.requests.unchecked.CachedUncheckedBase;
 import com.example.teamcity.api.requests.unchecked.UncheckedBase;
 import io.restassured.specification.RequestSpecification;
 
+import java.util.Collection;
 import java.util.EnumMap;
+import java.util.List;
 
 public class CheckedRequests {
     private final EnumMap<Endpoint, CheckedBase> requests = new EnumMap<>(Endpoint.class);
@@ -17,7 +20,35 @@ public class CheckedRequests {
         }
     }
 
+    // Запросы с клиентским кешем чтений (см. ReadCache)
+    public CheckedRequests(RequestSpecification spec, ReadCache readCache) {
+        for (var endpoint: Endpoint.values()) {
+            requests.put(endpoint, new CheckedBase(spec, endpoint, new CachedUncheckedBase(spec, endpoint, readCache)));
+        }
+    }
+
     public <T extends BaseModel> CheckedBase<T> getRequest(Endpoint endpoint) {
         return (CheckedBase<T>) requests.get(endpoint);
     }
+
+    /**
+     * Создает модели параллельно (не больше concurrency запросов одновременно).
+     * Результаты возвращаются в порядке моделей, неуспешное создание не прерывает остальные.
+     */
+    public <T extends BaseModel> List<BatchResult<T>> createAll(Endpoint endpoint, List<? extends BaseModel> models,
+                                                                int concurrency) {
+        return BatchRunner.run(models, concurrency, this.<T>getRequest(endpoint)::create);
+    }
+
+    public <T extends BaseModel> List<BatchResult<T>> createAll(Endpoint endpoint, List<? extends BaseModel> models) {
+        return createAll(endpoint, models, BatchRunner.DEFAULT_CONCURRENCY);
+    }
+
+    public List<BatchResult<String>> deleteAll(Endpoint endpoint, Collection<String> ids, int concurrency) {
+        return BatchRunner.run(ids, concurrency, getRequest(endpoint)::delete);
+    }
+
+    public List<BatchResult<String>> deleteAll(Endpoint endpoint, Collection<String> ids) {
+        return deleteAll(endpoint, ids, BatchRunner.DEFAULT_CONCURRENCY);
+    }
 }
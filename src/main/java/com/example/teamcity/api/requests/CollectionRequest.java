@@ -0,0 +1,169 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Чтение коллекций (GET /app/rest/projects, /buildTypes, /users) потоком моделей.
+ * <p>
+ * Коллекция читается постранично (count:N в локаторе, N задается свойством collectionPageSize),
+ * переход на следующую страницу - по nextHref из ответа. Следующая страница запрашивается, только когда текущая
+ * дочитана, а модели отдаются по одной и не накапливаются, поэтому потребление памяти ограничено одной страницей,
+ * а не количеством сущностей на сервере. Саму страницу RestAssured читает в память целиком; JsonParser лишь
+ * не строит из нее дерево и список всех моделей страницы.
+ * <p>
+ * Используется для поиска сущностей прогона, оставшихся на сервере после очистки
+ * (см. TestDataStorage.sweepLeakedEntities).
+ */
+public class CollectionRequest<T extends BaseModel> extends Request {
+    private static final int PAGE_SIZE = Config.getIntProperty("collectionPageSize", 100);
+    private static final String NEXT_HREF = "nextHref";
+
+    private final int pageSize;
+
+    public CollectionRequest(RequestSpecification spec, Endpoint endpoint) {
+        this(spec, endpoint, PAGE_SIZE);
+    }
+
+    public CollectionRequest(RequestSpecification spec, Endpoint endpoint, int pageSize) {
+        super(spec, endpoint);
+        if (endpoint.getCollectionField() == null) {
+            throw new IllegalArgumentException("Endpoint %s has no collection".formatted(endpoint));
+        }
+        this.pageSize = pageSize;
+    }
+
+    public Stream<T> stream() {
+        return stream(null, null);
+    }
+
+    /**
+     * @param locator локатор TeamCity без count (например, "affectedProject:(id:_Root)"), может быть null
+     * @param fields  поля каждой сущности в формате fields= TeamCity (например, "id,name"), может быть null
+     */
+    public Stream<T> stream(String locator, String fields) {
+        var firstPage = RestAssured.given().spec(spec)
+                .queryParam("locator", locator == null || locator.isBlank()
+                        ? "count:" + pageSize
+                        : locator + ",count:" + pageSize);
+        if (fields != null) {
+            // nextHref нужно запрашивать явно, иначе fields= его исключит
+            firstPage.queryParam("fields", "%s,%s(%s)".formatted(NEXT_HREF, endpoint.getCollectionField(), fields));
+        }
+        var iterator = new PageIterator(firstPage.get(endpoint.getUrl()));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private class PageIterator implements Iterator<T> {
+        private JsonParser parser;
+        private String nextHref;
+        private boolean inArray;
+        private T next;
+
+        private PageIterator(Response firstPage) {
+            open(firstPage);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var result = next;
+            next = null;
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T advance() {
+            try {
+                while (parser != null) {
+                    var token = parser.nextToken();
+                    if (inArray) {
+                        if (token == JsonToken.START_OBJECT) {
+                            return (T) parser.readValueAs(endpoint.getModelClass());
+                        }
+                        inArray = false;
+                    } else if (token == JsonToken.FIELD_NAME) {
+                        var fieldName = parser.currentName();
+                        var value = parser.nextToken();
+                        if (endpoint.getCollectionField().equals(fieldName) && value == JsonToken.START_ARRAY) {
+                            inArray = true;
+                        } else if (NEXT_HREF.equals(fieldName)) {
+                            nextHref = parser.getValueAsString();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    } else if (token == JsonToken.END_OBJECT || token == null) {
+                        // Страница дочитана: переходим на следующую, если она есть
+                        close();
+                        if (nextHref != null) {
+                            var href = nextHref;
+                            nextHref = null;
+                            open(RestAssured.given().spec(spec).urlEncodingEnabled(false).get(href));
+                        }
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Cannot read collection " + endpoint.getUrl(), e);
+            }
+        }
+
+        private void open(Response page) {
+            if (page.getStatusCode() != HttpStatus.SC_OK) {
+                throw new IllegalStateException("Cannot read collection %s: %d %s"
+                        .formatted(endpoint.getUrl(), page.getStatusCode(), page.asString()));
+            }
+            try {
+                parser = ModelObjectMapper.get().createParser(page.asInputStream());
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalStateException("Collection %s response is not a JSON object"
+                            .formatted(endpoint.getUrl()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read collection " + endpoint.getUrl(), e);
+            }
+        }
+
+        private void close() {
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    parser = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.models.BaseModel;
+
+import java.io.Serializable;
+import java.lang.invoke.SerializedLambda;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Типизированный список полей для частичного ответа TeamCity (параметр fields=).
+ * <p>
+ * Пример: {@code Fields.of(BuildType::getName, BuildType::getId)} превращается в {@code fields=name,id}.
+ * Имя поля берется из имени геттера в ссылке на метод, поэтому принимаются только ссылки на геттеры
+ * (getX/isX), а не произвольные лямбды. Для вложенных полей есть {@link #raw(String)},
+ * например {@code Fields.raw("id,steps(step(id,name))")}.
+ */
+public final class Fields<T extends BaseModel> {
+    // Класс ссылки на метод -> имя поля; SerializedLambda разбирается один раз на каждую ссылку в коде
+    private static final Map<Class<?>, String> FIELD_NAMES = new ConcurrentHashMap<>();
+
+    private final String value;
+
+    private Fields(String value) {
+        this.value = value;
+    }
+
+    @SafeVarargs
+    public static <T extends BaseModel> Fields<T> of(Getter<T, ?>... getters) {
+        if (getters.length == 0) {
+            throw new IllegalArgumentException("At least one field is required");
+        }
+        return new Fields<>(Arrays.stream(getters)
+                .map(getter -> FIELD_NAMES.computeIfAbsent(getter.getClass(), key -> resolveFieldName(getter)))
+                .collect(Collectors.joining(",")));
+    }
+
+    public static <T extends BaseModel> Fields<T> raw(String fields) {
+        return new Fields<>(fields);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    /**
+     * Ссылка на геттер модели. Serializable нужен, чтобы по ссылке на метод узнать имя геттера.
+     */
+    @FunctionalInterface
+    public interface Getter<T, R> extends Function<T, R>, Serializable {
+    }
+
+    // Имя метода из SerializedLambda: getName -> name, isEnabled -> enabled, getURL -> URL
+    private static String resolveFieldName(Getter<?, ?> getter) {
+        String methodName;
+        try {
+            var writeReplace = getter.getClass().getDeclaredMethod("writeReplace");
+            writeReplace.setAccessible(true);
+            methodName = ((SerializedLambda) writeReplace.invoke(getter)).getImplMethodName();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Field must be a getter method reference", e);
+        }
+        var prefixLength = methodName.startsWith("get") ? 3 : methodName.startsWith("is") ? 2 : 0;
+        if (prefixLength == 0 || methodName.length() == prefixLength) {
+            throw new IllegalArgumentException("Field must be a getter method reference, but was: " + methodName);
+        }
+        var name = methodName.substring(prefixLength);
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
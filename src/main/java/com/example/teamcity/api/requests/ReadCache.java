@@ -0,0 +1,229 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.qameta.allure.Allure;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Клиентский кеш чтений (opt-in, см. CachedUncheckedBase).
+ * <p>
+ * Хранит успешные ответы GET по ключу "эндпоинт + локатор + fields", не больше readCacheSize записей (LRU).
+ * Если сервер прислал ETag или Last-Modified, запись перепроверяется условным GET (If-None-Match /
+ * If-Modified-Since) и при 304 отдается из кеша. Записи эндпоинта удаляются при create/update/delete через тот же
+ * клиент, вместе с записями зависимых эндпоинтов: удаление проекта каскадно удаляет его build types,
+ * а проект содержит список своих build types.
+ * Ответ, прочитанный до инвалидации, в кеш не попадает: put сверяет поколение эндпоинта.
+ * Кеш привязан к клиенту (спецификации), поэтому ответы одного пользователя не попадают другому.
+ */
+public class ReadCache {
+    private static final int DEFAULT_SIZE = 256;
+    private static final Path REPORT_PATH = Paths.get("target/read-cache-stats.json");
+    // Эндпоинты, записи которых устаревают при изменении сущностей эндпоинта-ключа
+    private static final Map<Endpoint, Set<Endpoint>> DEPENDENTS = Map.of(
+            Endpoint.PROJECTS, Set.of(Endpoint.BUILD_TYPES),
+            Endpoint.BUILD_TYPES, Set.of(Endpoint.PROJECTS));
+    // Статистика всех кешей прогона, по ней строится отчет (см. export)
+    private static final Map<Endpoint, Stats> TOTALS = new EnumMap<>(Endpoint.class);
+
+    static {
+        for (var endpoint : Endpoint.values()) {
+            TOTALS.put(endpoint, new Stats(null));
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Long> generations = new EnumMap<>(Endpoint.class);
+
+    public ReadCache() {
+        this(Config.getIntProperty("readCacheSize", DEFAULT_SIZE));
+    }
+
+    public ReadCache(int maxSize) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        for (var endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats(TOTALS.get(endpoint)));
+            generations.put(endpoint, 0L);
+        }
+    }
+
+    public Entry get(Endpoint endpoint, String key) {
+        synchronized (entries) {
+            return entries.get(endpoint.name() + ":" + key);
+        }
+    }
+
+    /**
+     * Поколение эндпоинта, снимается до запроса и передается в put.
+     */
+    public long generation(Endpoint endpoint) {
+        synchronized (entries) {
+            return generations.get(endpoint);
+        }
+    }
+
+    /**
+     * Кладет ответ в кеш, если с момента снятия generation эндпоинт не инвалидировался.
+     */
+    public void put(Endpoint endpoint, String key, Response response, long generation) {
+        var entry = new Entry(new ResponseBuilder().clone(response).build(),
+                response.getHeader("ETag"), response.getHeader("Last-Modified"));
+        synchronized (entries) {
+            if (generations.get(endpoint) == generation) {
+                entries.put(endpoint.name() + ":" + key, entry);
+            }
+        }
+    }
+
+    public void invalidate(Endpoint endpoint) {
+        synchronized (entries) {
+            remove(endpoint);
+            DEPENDENTS.getOrDefault(endpoint, Set.of()).forEach(this::remove);
+        }
+    }
+
+    private void remove(Endpoint endpoint) {
+        generations.merge(endpoint, 1L, Long::sum);
+        entries.keySet().removeIf(key -> key.startsWith(endpoint.name() + ":"));
+    }
+
+    public Stats getStats(Endpoint endpoint) {
+        return stats.get(endpoint);
+    }
+
+    @Override
+    public String toString() {
+        return stats.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .collect(Collectors.joining(", ", "ReadCache{", "}"));
+    }
+
+    /**
+     * Пишет статистику всех кешей прогона в target/read-cache-stats.json и прикладывает ее к Allure-отчету.
+     * Если кеш в прогоне не использовался, отчет не пишется.
+     */
+    public static void export() {
+        var report = new TreeMap<String, Object>();
+        TOTALS.forEach((endpoint, stats) -> {
+            if (stats.total() > 0) {
+                report.put(endpoint.name(), stats.toReport());
+            }
+        });
+        if (report.isEmpty()) {
+            return;
+        }
+        try {
+            var json = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+            Files.createDirectories(REPORT_PATH.getParent());
+            Files.writeString(REPORT_PATH, json, StandardCharsets.UTF_8);
+            Allure.addAttachment("Read cache stats", "application/json", json, ".json");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize read cache stats", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write read cache stats to " + REPORT_PATH, e);
+        }
+    }
+
+    /**
+     * Закешированный ответ и его валидаторы (могут быть null, если сервер их не прислал).
+     */
+    public record Entry(Response response, String etag, String lastModified) {
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        // Копия ответа, чтобы вызывающий код не разделял один объект Response
+        public Response copy() {
+            return new ResponseBuilder().clone(response).build();
+        }
+    }
+
+    public static class Stats {
+        // Ответ из кеша без запроса
+        private final LongAdder hits = new LongAdder();
+        // Ответ из кеша после 304
+        private final LongAdder revalidated = new LongAdder();
+        // Полный запрос к серверу
+        private final LongAdder misses = new LongAdder();
+        // Общая статистика прогона по эндпоинту, null у нее самой
+        private final Stats total;
+
+        private Stats(Stats total) {
+            this.total = total;
+        }
+
+        public void hit() {
+            hits.increment();
+            if (total != null) {
+                total.hit();
+            }
+        }
+
+        public void revalidated() {
+            revalidated.increment();
+            if (total != null) {
+                total.revalidated();
+            }
+        }
+
+        public void miss() {
+            misses.increment();
+            if (total != null) {
+                total.miss();
+            }
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getRevalidated() {
+            return revalidated.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        private long total() {
+            return hits.sum() + revalidated.sum() + misses.sum();
+        }
+
+        private Map<String, Object> toReport() {
+            var report = new LinkedHashMap<String, Object>();
+            report.put("hits", getHits());
+            report.put("revalidated", getRevalidated());
+            report.put("misses", getMisses());
+            report.put("hitRatio", (double) (getHits() + getRevalidated()) / total());
+            return report;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=%d, revalidated=%d, misses=%d".formatted(hits.sum(), revalidated.sum(), misses.sum());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.teamcity.api.requests;
+
+import io.restassured.RestAssured;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpStatus;
+
+/**
+ * Сессия TeamCity для пользователя из спецификации: на запрос с Basic авторизацией TeamCity отвечает
+ * cookie TCSESSIONID, с которой браузер считается залогиненным.
+ */
+public class SessionRequest {
+    public static final String SESSION_COOKIE = "TCSESSIONID";
+    private static final String SERVER_URL = "/app/rest/server";
+    private RequestSpecification spec;
+
+    public SessionRequest(RequestSpecification spec) {
+        this.spec = spec;
+    }
+
+    public String create() {
+        var sessionId = RestAssured.given()
+                .spec(spec)
+                .get(SERVER_URL)
+                .then().assertThat().statusCode(HttpStatus.SC_OK)
+                .extract().cookie(SESSION_COOKIE);
+        if (sessionId == null) {
+            throw new IllegalStateException("TeamCity did not return " + SESSION_COOKIE + " cookie");
+        }
+        return sessionId;
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.teamcity.api.requests;
 
 import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.requests.unchecked.CachedUncheckedBase;
 import com.example.teamcity.api.requests.unchecked.UncheckedBase;
+import com.example.teamcity.api.models.BaseModel;
+import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 
+import java.util.Collection;
 import java.util.EnumMap;
+import java.util.List;
 
 public class UncheckedRequests {
     private final EnumMap<Endpoint, UncheckedBase> requests = new EnumMap<>(Endpoint.class);
@@ -15,7 +20,34 @@ public class UncheckedRequests {
         }
     }
 
+    // Запросы с клиентским кешем чтений (см. ReadCache)
+    public UncheckedRequests(RequestSpecification spec, ReadCache readCache) {
+        for (var endpoint: Endpoint.values()) {
+            requests.put(endpoint, new CachedUncheckedBase(spec, endpoint, readCache));
+        }
+    }
+
     public UncheckedBase getRequest(Endpoint endpoint) {
         return requests.get(endpoint);
     }
+
+    /**
+     * Отправляет запросы на создание параллельно (не больше concurrency одновременно).
+     * Ответы возвращаются в порядке моделей, статусы не проверяются.
+     */
+    public List<BatchResult<Response>> createAll(Endpoint endpoint, List<? extends BaseModel> models, int concurrency) {
+        return BatchRunner.run(models, concurrency, getRequest(endpoint)::create);
+    }
+
+    public List<BatchResult<Response>> createAll(Endpoint endpoint, List<? extends BaseModel> models) {
+        return createAll(endpoint, models, BatchRunner.DEFAULT_CONCURRENCY);
+    }
+
+    public List<BatchResult<Response>> deleteAll(Endpoint endpoint, Collection<String> ids, int concurrency) {
+        return BatchRunner.run(ids, concurrency, getRequest(endpoint)::delete);
+    }
+
+    public List<BatchResult<Response>> deleteAll(Endpoint endpoint, Collection<String> ids) {
+        return deleteAll(endpoint, ids, BatchRunner.DEFAULT_CONCURRENCY);
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.teamcity.api.requests.checked;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.generators.TestDataStorage;
+import com.example.teamcity.api.logging.RequestLog;
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.requests.CrudInterface;
+import com.example.teamcity.api.requests.Request;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный вариант CheckedBase: те же запросы и проверки статусов, но результат возвращается
+ * как CompletableFuture, а запрос выполняется в общем ограниченном пуле (свойство asyncRequestThreads).
+ * <p>
+ * Созданные сущности регистрируются в TestDataStorage того теста, который отправил запрос,
+ * а не потока пула, поэтому после теста они удаляются как обычно.
+ */
+public final class AsyncCheckedBase<T extends BaseModel> extends Request implements CrudInterface {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Config.getIntProperty("asyncRequestThreads", 16), new NamedThreadFactory("async-requests"));
+
+    private final CheckedBase<T> checkedBase;
+
+    public AsyncCheckedBase(RequestSpecification spec, Endpoint endpoint) {
+        super(spec, endpoint);
+        this.checkedBase = new CheckedBase<>(spec, endpoint);
+    }
+
+    @Override
+    public CompletableFuture<T> create(BaseModel model) {
+        return supplyAsync(() -> checkedBase.create(model));
+    }
+
+    @Override
+    public CompletableFuture<T> read(String id) {
+        return supplyAsync(() -> checkedBase.read(id));
+    }
+
+    @Override
+    public CompletableFuture<T> update(String id, BaseModel model) {
+        return supplyAsync(() -> checkedBase.update(id, model));
+    }
+
+    @Override
+    public CompletableFuture<String> delete(String id) {
+        return supplyAsync(() -> checkedBase.delete(id));
+    }
+
+    /**
+     * Дожидается результата запроса. В отличие от join() выбрасывает исходную ошибку запроса
+     * (например, AssertionError проверки статуса), а не обернутую в CompletionException.
+     */
+    public static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <R> CompletableFuture<R> supplyAsync(Supplier<R> request) {
+        // Реестр и буфер лога берутся в потоке теста, до передачи запроса в пул
+        var storage = TestDataStorage.getStorage();
+        return CompletableFuture.supplyAsync(RequestLog.bind(() -> storage.callBound(request)), EXECUTOR);
+    }
+}
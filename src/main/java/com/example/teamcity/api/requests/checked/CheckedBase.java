@@ -4,19 +4,28 @@ import com.example.teamcity.api.enums.Endpoint;
 import com.example.teamcity.api.generators.TestDataStorage;
 import com.example.teamcity.api.models.BaseModel;
 import com.example.teamcity.api.requests.CrudInterface;
+import com.example.teamcity.api.requests.Fields;
 import com.example.teamcity.api.requests.Request;
 import com.example.teamcity.api.requests.unchecked.UncheckedBase;
 import io.qameta.allure.Step;
 import io.restassured.specification.RequestSpecification;
 import org.apache.http.HttpStatus;
+import org.hamcrest.Matchers;
+
+import java.util.function.Predicate;
 
 @SuppressWarnings("unchecked")
 public final class CheckedBase<T extends BaseModel> extends Request implements CrudInterface {
     private final UncheckedBase uncheckedBase;
 
     public CheckedBase(RequestSpecification spec, Endpoint endpoint) {
+        this(spec, endpoint, new UncheckedBase(spec, endpoint));
+    }
+
+    // Позволяет подменить реализацию запросов, например на CachedUncheckedBase
+    public CheckedBase(RequestSpecification spec, Endpoint endpoint, UncheckedBase uncheckedBase) {
         super(spec, endpoint);
-        this.uncheckedBase = new UncheckedBase(spec, endpoint);
+        this.uncheckedBase = uncheckedBase;
     }
 
     @Override
@@ -38,6 +47,30 @@ public final class CheckedBase<T extends BaseModel> extends Request implements C
                 .extract().as(endpoint.getModelClass());
     }
 
+    public T read(String id, Fields<T> fields) {
+        return (T) uncheckedBase
+                .read(id, fields)
+                .then().assertThat().statusCode(HttpStatus.SC_OK)
+                .extract().as(endpoint.getModelClass());
+    }
+
+    // Ждет появления сущности, см. UncheckedBase.awaitRead
+    public T awaitRead(String id) {
+        return (T) uncheckedBase
+                .awaitRead(id)
+                .then().assertThat().statusCode(HttpStatus.SC_OK)
+                .extract().as(endpoint.getModelClass());
+    }
+
+    // Ждет, пока прочитанная сущность удовлетворит condition, см. UncheckedBase.awaitCondition
+    public T awaitCondition(String id, Predicate<T> condition) {
+        return (T) uncheckedBase
+                .awaitCondition(id, response -> response.getStatusCode() == HttpStatus.SC_OK
+                        && condition.test((T) response.as(endpoint.getModelClass())))
+                .then().assertThat().statusCode(HttpStatus.SC_OK)
+                .extract().as(endpoint.getModelClass());
+    }
+
     @Override
     public T update(String id, BaseModel model) {
         return (T) uncheckedBase
@@ -48,9 +81,14 @@ public final class CheckedBase<T extends BaseModel> extends Request implements C
 
     @Override
     public String delete(String id) {
-        return uncheckedBase
+        var response = uncheckedBase
                 .delete(id)
-                .then().assertThat().statusCode(HttpStatus.SC_OK)
+                // TeamCity отвечает на DELETE 204 No Content
+                .then().assertThat().statusCode(Matchers.oneOf(HttpStatus.SC_OK, HttpStatus.SC_NO_CONTENT))
                 .extract().asString();
+
+        // Удаленную сущность больше не нужно удалять после теста
+        TestDataStorage.getStorage().removeCreatedEntity(endpoint, id);
+        return response;
     }
 }
@@ -0,0 +1,101 @@
+package com.example.teamcity.api.requests.unchecked;
+
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.requests.Fields;
+import com.example.teamcity.api.requests.ReadCache;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpStatus;
+
+/**
+ * UncheckedBase с кешем чтений (см. ReadCache).
+ * <p>
+ * Запись без ETag/Last-Modified отдается из кеша до create/update/delete через этот же клиент,
+ * запись с валидаторами перепроверяется условным GET. Кеш инвалидируется до и после записи:
+ * чтение, начатое до ее завершения, не вернет в кеш старое состояние.
+ */
+public class CachedUncheckedBase extends UncheckedBase {
+    private final ReadCache cache;
+
+    public CachedUncheckedBase(RequestSpecification spec, Endpoint endpoint, ReadCache cache) {
+        super(spec, endpoint);
+        this.cache = cache;
+    }
+
+    @Override
+    public Response read(String locator) {
+        return cachedRead(locator, null);
+    }
+
+    @Override
+    public Response read(String locator, Fields<?> fields) {
+        return cachedRead(locator, fields);
+    }
+
+    @Override
+    public Response create(BaseModel model) {
+        cache.invalidate(endpoint);
+        try {
+            return super.create(model);
+        } finally {
+            cache.invalidate(endpoint);
+        }
+    }
+
+    @Override
+    public Response update(String locator, BaseModel model) {
+        cache.invalidate(endpoint);
+        try {
+            return super.update(locator, model);
+        } finally {
+            cache.invalidate(endpoint);
+        }
+    }
+
+    @Override
+    public Response delete(String locator) {
+        cache.invalidate(endpoint);
+        try {
+            return super.delete(locator);
+        } finally {
+            cache.invalidate(endpoint);
+        }
+    }
+
+    private Response cachedRead(String locator, Fields<?> fields) {
+        var key = fields == null ? locator : locator + "?fields=" + fields;
+        var stats = cache.getStats(endpoint);
+        var generation = cache.generation(endpoint);
+        var entry = cache.get(endpoint, key);
+        if (entry != null && !entry.hasValidators()) {
+            stats.hit();
+            return entry.copy();
+        }
+
+        var request = RestAssured.given().spec(spec);
+        if (fields != null) {
+            request.queryParam("fields", fields.toString());
+        }
+        if (entry != null) {
+            if (entry.etag() != null) {
+                request.header("If-None-Match", entry.etag());
+            }
+            if (entry.lastModified() != null) {
+                request.header("If-Modified-Since", entry.lastModified());
+            }
+        }
+        var response = request.get(endpoint.getUrl() + "/" + locator);
+
+        if (entry != null && response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+            stats.revalidated();
+            return entry.copy();
+        }
+        stats.miss();
+        if (response.getStatusCode() == HttpStatus.SC_OK) {
+            cache.put(endpoint, key, response, generation);
+        }
+        return response;
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.teamcity.api.requests.unchecked;
 
+import com.example.teamcity.api.config.Config;
 import com.example.teamcity.api.enums.Endpoint;
 import com.example.teamcity.api.models.BaseModel;
 import com.example.teamcity.api.requests.CrudInterface;
+import com.example.teamcity.api.requests.Fields;
 import com.example.teamcity.api.requests.Request;
+import com.example.teamcity.api.utils.Backoff;
+import com.example.teamcity.api.utils.Poller;
+import io.qameta.allure.Allure;
 import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.function.Predicate;
 
 public class UncheckedBase extends Request implements CrudInterface {
+    private static final Duration AWAIT_TIMEOUT = Duration.ofSeconds(Config.getIntProperty("awaitTimeoutSec", 30));
+    private static final Backoff AWAIT_BACKOFF = Backoff.fromConfig("await", 100, 2_000);
 
     public UncheckedBase(RequestSpecification spec, Endpoint endpoint) {
         super(spec, endpoint);
@@ -31,6 +42,15 @@ public class UncheckedBase extends Request implements CrudInterface {
                 .get(endpoint.getUrl() + "/" + locator);
     }
 
+    // Частичное чтение: TeamCity вернет только перечисленные в fields поля
+    public Response read(String locator, Fields<?> fields) {
+        return RestAssured
+                .given()
+                .spec(spec)
+                .queryParam("fields", fields.toString())
+                .get(endpoint.getUrl() + "/" + locator);
+    }
+
     @Override
     public Response update(String locator, BaseModel model) {
         return RestAssured
@@ -47,4 +67,30 @@ public class UncheckedBase extends Request implements CrudInterface {
                 .spec(spec)
                 .delete(endpoint.getUrl() + "/" + locator);
     }
+
+    /**
+     * Читает сущность, пока она не появится, например после создания через UI. Повторяется только 404:
+     * любой другой ответ (200, но и 401, 403, 500) возвращается сразу, статус проверяет вызывающий код.
+     */
+    public Response awaitRead(String locator) {
+        return awaitCondition(locator, response -> response.getStatusCode() != HttpStatus.SC_NOT_FOUND);
+    }
+
+    /**
+     * Читает сущность, пока ответ не удовлетворит condition, с экспоненциальной задержкой и jitter между попытками
+     * (awaitInitialDelayMs, awaitMaxDelayMs), но не дольше awaitTimeoutSec. Число попыток и время ожидания
+     * попадают в Allure шагом. Чтения идут мимо кеша, чтобы видеть изменения на сервере.
+     */
+    public Response awaitCondition(String locator, Predicate<Response> condition) {
+        var description = "Await %s/%s".formatted(endpoint.getUrl(), locator);
+        var result = Poller.poll(description, AWAIT_TIMEOUT, AWAIT_BACKOFF, () -> {
+            var response = RestAssured
+                    .given()
+                    .spec(spec)
+                    .get(endpoint.getUrl() + "/" + locator);
+            return condition.test(response) ? response : null;
+        });
+        Allure.step("%s: %d attempts, %d ms".formatted(description, result.attempts(), result.waited().toMillis()));
+        return result.value();
+    }
 }
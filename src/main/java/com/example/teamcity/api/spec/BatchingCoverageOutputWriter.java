@@ -0,0 +1,292 @@
+package com.example.teamcity.api.spec;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.viclovsky.swagger.coverage.CoverageOutputWriter;
+import com.github.viclovsky.swagger.coverage.FileSystemOutputWriter;
+import com.github.viclovsky.swagger.coverage.SwaggerCoverageUtils;
+import com.github.viclovsky.swagger.coverage.SwaggerCoverageWriteException;
+import com.github.viclovsky.swagger.coverage.model.SwaggerCoverage2ModelJackson;
+import io.swagger.models.Swagger;
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.viclovsky.swagger.coverage.SwaggerCoverageConstants.OUTPUT_DIRECTORY;
+
+/**
+ * Асинхронная запись swagger-coverage вместо FileSystemOutputWriter.
+ * <p>
+ * FileSystemOutputWriter синхронно пишет отдельный файл на каждый запрос. Здесь запрос только кладет запись
+ * в очередь (при переполнении очереди - ждет), а фоновый поток пачками до coverageBatchSize записей дописывает их
+ * строками JSON в один файл target/swagger-coverage-spool-*.jsonl.
+ * <p>
+ * Отчет swagger-coverage читает из target/swagger-coverage-output спецификации Swagger, поэтому в конце прогона
+ * ({@link #finish()}) записи объединяются в один файл: повторные вызовы одной пары путь + метод сливаются
+ * в одну операцию со всеми различными параметрами и кодами ответов, поэтому число файлов не зависит от числа
+ * вызовов. При старте подбираются спулы процессов, убитых до finish().
+ * <p>
+ * Записи забираются из очереди только под монитором writer'а, поэтому finish() не может начать объединение,
+ * пока фоновый поток держит взятую, но еще не дописанную запись. Ошибки фонового потока
+ * выбрасываются из finish().
+ */
+public final class BatchingCoverageOutputWriter implements CoverageOutputWriter {
+    private static final int BATCH_SIZE = Config.getIntProperty("coverageBatchSize", 500);
+    private static final int QUEUE_CAPACITY = Config.getIntProperty("coverageQueueCapacity", 10_000);
+    private static final Path OUTPUT_PATH = Paths.get("target/" + OUTPUT_DIRECTORY);
+    private static final Path SPOOL_PATH = Paths.get("target/swagger-coverage-spool-%d.jsonl"
+            .formatted(ProcessHandle.current().pid()));
+    private static final BatchingCoverageOutputWriter INSTANCE = new BatchingCoverageOutputWriter();
+
+    private final ObjectMapper jsonMapper = SwaggerCoverage2ModelJackson.createJsonMapper();
+    private final BlockingQueue<Swagger> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Сигнал фоновому потоку о новых записях: ждать на нем можно без монитора, не забирая запись из очереди
+    private final Semaphore queued = new Semaphore(0);
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile RuntimeException failure;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(new NamedThreadFactory("coverage-writer"));
+    // OpenAPI 3 этот фильтр не использует, такие записи пишутся как раньше
+    private final CoverageOutputWriter openApiWriter = new FileSystemOutputWriter(OUTPUT_PATH);
+    private BufferedWriter spool;
+
+    private BatchingCoverageOutputWriter() {
+        try {
+            recoverSpools();
+        } catch (RuntimeException e) {
+            // Ошибка подбора чужих спулов не должна ломать запись покрытия этого прогона, она выбрасывается из finish()
+            failures.incrementAndGet();
+            failure = e;
+        }
+        flusher.execute(this::flushLoop);
+        Runtime.getRuntime().addShutdownHook(new Thread(BatchingCoverageOutputWriter::finish, "coverage-writer-finish"));
+    }
+
+    public static BatchingCoverageOutputWriter get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void write(Swagger swagger) {
+        try {
+            queue.put(swagger);
+            queued.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SwaggerCoverageWriteException("Interrupted while queueing coverage record", e);
+        }
+    }
+
+    @Override
+    public void write(OpenAPI openAPI) {
+        openApiWriter.write(openAPI);
+    }
+
+    /**
+     * Дописывает очередь и раскладывает накопленные записи в target/swagger-coverage-output.
+     * Можно вызывать повторно: следующий вызов обработает только записи, сделанные после предыдущего.
+     */
+    public static void finish() {
+        synchronized (INSTANCE) {
+            INSTANCE.flush();
+            INSTANCE.merge();
+            INSTANCE.throwIfFailed();
+        }
+    }
+
+    private void flushLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (queued.tryAcquire(1, TimeUnit.SECONDS)) {
+                    queued.drainPermits();
+                    synchronized (this) {
+                        flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Первая ошибка выбрасывается из finish(), остальные только считаются
+                if (failures.getAndIncrement() == 0) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void throwIfFailed() {
+        var error = failure;
+        if (error == null) {
+            return;
+        }
+        var count = failures.getAndSet(0);
+        failure = null;
+        throw new SwaggerCoverageWriteException("Background coverage write failed %d time(s)".formatted(count), error);
+    }
+
+    // Вызывается под монитором writer'а
+    private void flush() {
+        var batch = new ArrayList<Swagger>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            batch.forEach(this::append);
+            batch.clear();
+        }
+        try {
+            if (spool != null) {
+                spool.flush();
+            }
+        } catch (IOException e) {
+            throw new SwaggerCoverageWriteException("Could not write coverage spool " + SPOOL_PATH, e);
+        }
+    }
+
+    private void append(Swagger swagger) {
+        try {
+            if (spool == null) {
+                Files.createDirectories(SPOOL_PATH.getParent());
+                spool = Files.newBufferedWriter(SPOOL_PATH, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spool.write(jsonMapper.writeValueAsString(swagger));
+            spool.newLine();
+        } catch (IOException e) {
+            throw new SwaggerCoverageWriteException("Could not write coverage spool " + SPOOL_PATH, e);
+        }
+    }
+
+    private void merge() {
+        if (spool == null) {
+            return;
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            throw new SwaggerCoverageWriteException("Could not close coverage spool " + SPOOL_PATH, e);
+        }
+        spool = null;
+        merge(SPOOL_PATH, false);
+    }
+
+    // Спулы процессов, которые завершились, не дойдя до finish() (например, убитые по таймауту форки surefire).
+    // Спулы живых процессов не трогаются: их объединит сам процесс
+    private void recoverSpools() {
+        try (var spools = Files.newDirectoryStream(SPOOL_PATH.getParent(), "swagger-coverage-spool-*.jsonl")) {
+            for (var leftover : spools) {
+                var name = leftover.getFileName().toString();
+                var pid = Long.parseLong(name.substring("swagger-coverage-spool-".length(), name.length() - ".jsonl".length()));
+                if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                    continue;
+                }
+                merge(leftover, true);
+            }
+        } catch (NoSuchFileException e) {
+            // target еще не создан - подбирать нечего
+        } catch (IOException | NumberFormatException e) {
+            throw new SwaggerCoverageWriteException("Could not recover coverage spools in " + SPOOL_PATH.getParent(), e);
+        }
+    }
+
+    // Объединяет записи спула в один выходной файл и удаляет спул. В спуле убитого процесса последняя строка
+    // может быть недописана (truncated) - такие строки пропускаются
+    private void merge(Path spoolPath, boolean truncated) {
+        var operations = new LinkedHashMap<String, ObjectNode>();
+        ObjectNode merged = null;
+        try (var lines = Files.newBufferedReader(spoolPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                var record = read(spoolPath, line, truncated);
+                if (record == null) {
+                    continue;
+                }
+                if (merged == null) {
+                    merged = record.deepCopy();
+                    merged.putObject("paths");
+                }
+                addOperations(operations, record);
+            }
+            if (merged != null) {
+                var paths = (ObjectNode) merged.get("paths");
+                operations.forEach((key, operation) -> {
+                    var separator = key.indexOf(' ');
+                    var path = key.substring(separator + 1);
+                    var methods = paths.has(path) ? (ObjectNode) paths.get(path) : paths.putObject(path);
+                    methods.set(key.substring(0, separator), operation);
+                });
+                Files.createDirectories(OUTPUT_PATH);
+                jsonMapper.writerWithDefaultPrettyPrinter()
+                        .writeValue(OUTPUT_PATH.resolve(SwaggerCoverageUtils.generateJsonCoverageOutputName()).toFile(), merged);
+            }
+            Files.delete(spoolPath);
+        } catch (IOException e) {
+            throw new SwaggerCoverageWriteException("Could not merge coverage spool " + spoolPath, e);
+        }
+    }
+
+    private ObjectNode read(Path spoolPath, String line, boolean truncated) {
+        try {
+            return (ObjectNode) jsonMapper.readTree(line);
+        } catch (IOException e) {
+            if (truncated) {
+                return null;
+            }
+            throw new SwaggerCoverageWriteException("Could not read coverage spool " + spoolPath, e);
+        }
+    }
+
+    // Повторные вызовы операции (пара метод + путь) сливаются в одну: swagger-coverage учитывает, какие параметры
+    // и коды ответов встречались, поэтому достаточно объединения различных параметров и всех кодов ответов
+    static void addOperations(Map<String, ObjectNode> operations, ObjectNode record) {
+        record.path("paths").fields().forEachRemaining(path ->
+                path.getValue().fields().forEachRemaining(call -> {
+                    var key = call.getKey() + " " + path.getKey();
+                    var operation = operations.get(key);
+                    if (operation == null) {
+                        operations.put(key, ((ObjectNode) call.getValue()).deepCopy());
+                        return;
+                    }
+                    var parameters = operation.has("parameters") ? (ArrayNode) operation.get("parameters")
+                            : operation.putArray("parameters");
+                    for (var parameter : call.getValue().path("parameters")) {
+                        if (!contains(parameters, parameter)) {
+                            parameters.add(parameter);
+                        }
+                    }
+                    var responses = operation.has("responses") ? (ObjectNode) operation.get("responses")
+                            : operation.putObject("responses");
+                    call.getValue().path("responses").fields().forEachRemaining(response -> {
+                        if (!responses.has(response.getKey())) {
+                            responses.set(response.getKey(), response.getValue());
+                        }
+                    });
+                }));
+    }
+
+    private static boolean contains(Iterable<JsonNode> nodes, JsonNode node) {
+        for (var existing : nodes) {
+            if (existing.equals(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.teamcity.api.spec;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общий пул keep-alive соединений для всех запросов RestAssured.
+ * <p>
+ * RestAssured (HttpClient 4) требует DefaultHttpClient и по умолчанию создает новый клиент со своим
+ * менеджером соединений на каждый запрос. Здесь на каждый запрос по-прежнему создается легкий DefaultHttpClient
+ * (у него свои параметры и учетные данные, поэтому параллельные запросы разных пользователей не мешают друг другу),
+ * но все клиенты берут соединения из одного пула, который RestAssured не может закрыть.
+ * <p>
+ * Настройки (свойства config.properties или -D): httpMaxTotal, httpMaxPerRoute, httpConnectTimeoutMs,
+ * httpSocketTimeoutMs, httpKeepAliveMs, httpIdleTimeoutMs.
+ */
+@SuppressWarnings("deprecation")
+public final class HttpConnectionPool {
+    private static final int MAX_TOTAL = Config.getIntProperty("httpMaxTotal", 200);
+    private static final int MAX_PER_ROUTE = Config.getIntProperty("httpMaxPerRoute", 50);
+    private static final int CONNECT_TIMEOUT_MS = Config.getIntProperty("httpConnectTimeoutMs", 10_000);
+    private static final int SOCKET_TIMEOUT_MS = Config.getIntProperty("httpSocketTimeoutMs", 60_000);
+    private static final int KEEP_ALIVE_MS = Config.getIntProperty("httpKeepAliveMs", 30_000);
+    private static final int IDLE_TIMEOUT_MS = Config.getIntProperty("httpIdleTimeoutMs", 30_000);
+
+    private static final PoolingClientConnectionManager POOL = createPool();
+    private static final ClientConnectionManager SHARED_POOL = new NonClosingConnectionManager(POOL);
+    private static final ScheduledExecutorService IDLE_EVICTOR = startIdleEvictor();
+
+    private HttpConnectionPool() {
+    }
+
+    public static HttpClientConfig httpClientConfig() {
+        return HttpClientConfig.httpClientConfig()
+                .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, CONNECT_TIMEOUT_MS)
+                .setParam(CoreConnectionPNames.SO_TIMEOUT, SOCKET_TIMEOUT_MS)
+                .httpClientFactory(HttpConnectionPool::createHttpClient);
+    }
+
+    public static PoolStats getStats() {
+        return POOL.getTotalStats();
+    }
+
+    private static DefaultHttpClient createHttpClient() {
+        var httpClient = new DefaultHttpClient(SHARED_POOL);
+        httpClient.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                // Если сервер не прислал Keep-Alive: timeout, держим соединение не дольше httpKeepAliveMs
+                var duration = super.getKeepAliveDuration(response, context);
+                return duration > 0 ? Math.min(duration, KEEP_ALIVE_MS) : KEEP_ALIVE_MS;
+            }
+        });
+        return httpClient;
+    }
+
+    private static PoolingClientConnectionManager createPool() {
+        var pool = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+        pool.setMaxTotal(MAX_TOTAL);
+        pool.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+        return pool;
+    }
+
+    // Закрывает соединения, простаивающие дольше httpIdleTimeoutMs или с истекшим keep-alive
+    private static ScheduledExecutorService startIdleEvictor() {
+        var evictor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("http-idle-evictor"));
+        var period = Math.max(IDLE_TIMEOUT_MS / 2, 1_000);
+        evictor.scheduleWithFixedDelay(() -> {
+            POOL.closeExpiredConnections();
+            POOL.closeIdleConnections(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+        return evictor;
+    }
+
+    /**
+     * RestAssured закрывает менеджер соединений клиента после каждого ответа, поэтому пул отдается ему
+     * через обертку, которая игнорирует shutdown().
+     */
+    private record NonClosingConnectionManager(ClientConnectionManager delegate) implements ClientConnectionManager {
+        @Override
+        public SchemeRegistry getSchemeRegistry() {
+            return delegate.getSchemeRegistry();
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            return delegate.requestConnection(route, state);
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection conn, long validDuration, TimeUnit timeUnit) {
+            delegate.releaseConnection(conn, validDuration, timeUnit);
+        }
+
+        @Override
+        public void closeIdleConnections(long idletime, TimeUnit timeUnit) {
+            delegate.closeIdleConnections(idletime, timeUnit);
+        }
+
+        @Override
+        public void closeExpiredConnections() {
+            delegate.closeExpiredConnections();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -1,51 +1,124 @@
 package com.example.teamcity.api.spec;
 
 import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.logging.BufferingLoggingFilter;
+import com.example.teamcity.api.logging.RequestLog;
+import com.example.teamcity.api.metrics.RestMetricsFilter;
 import com.example.teamcity.api.models.User;
-import com.github.viclovsky.swagger.coverage.FileSystemOutputWriter;
+import com.example.teamcity.api.replay.RecordReplayFilter;
+import com.example.teamcity.api.standin.StandInServer;
 import com.github.viclovsky.swagger.coverage.SwaggerCoverageRestAssured;
 import io.qameta.allure.restassured.AllureRestAssured;
 import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
 import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
 import io.restassured.specification.RequestSpecification;
 
-import java.nio.file.Paths;
-
-import static com.github.viclovsky.swagger.coverage.SwaggerCoverageConstants.OUTPUT_DIRECTORY;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Спецификации запросов.
+ * <p>
+ * Собранные спецификации кешируются по учетным данным и хосту (LRU, размер задается свойством specCacheSize),
+ * поэтому повторные вызовы не собирают спецификацию заново. Фильтры не хранят состояния между запросами
+ * и общие для всех спецификаций. Закешированный образец наружу не отдается: каждый вызов возвращает его копию,
+ * так что изменения спецификации у одного вызывающего (например, .header(...)) не видны другим.
+ * <p>
+ * Все спецификации используют общий пул HTTP-соединений (см. HttpConnectionPool)
+ * и общий ObjectMapper моделей (см. ModelObjectMapper).
+ */
 public class Specifications {
+    private static final int DEFAULT_CACHE_SIZE = 64;
+    private static final List<Filter> FILTERS = createFilters();
+    private static final RestAssuredConfig CONFIG = RestAssuredConfig.config()
+            .httpClient(HttpConnectionPool.httpClientConfig())
+            .objectMapperConfig(ModelObjectMapper.objectMapperConfig());
+    private static final Map<String, RequestSpecification> SPEC_CACHE = new SpecCache(
+            Config.getIntProperty("specCacheSize", DEFAULT_CACHE_SIZE));
+
+    private static List<Filter> createFilters() {
+        var filters = new ArrayList<Filter>();
+        if (RequestLog.isOnFailureOnly()) {
+            // Запросы и ответы печатаются только для упавших тестов (см. RequestLog)
+            filters.add(new BufferingLoggingFilter());
+        } else {
+            filters.add(new RequestLoggingFilter());
+            filters.add(new ResponseLoggingFilter());
+        }
+        // Покрытие пишется в фоне пачками и раскладывается в target/swagger-coverage-output в конце прогона
+        filters.add(new SwaggerCoverageRestAssured(BatchingCoverageOutputWriter.get()));
+        filters.add(new AllureRestAssured());
+        // Последним, чтобы измерять только сам запрос
+        filters.add(new RestMetricsFilter());
+        if (RecordReplayFilter.isEnabled()) {
+            // После метрик: при воспроизведении метрики показывают чистое время клиента
+            filters.add(RecordReplayFilter.get());
+        }
+        return List.copyOf(filters);
+    }
+
     private static RequestSpecBuilder reqBuilder() {
         var requestBuilder = new RequestSpecBuilder();
-        requestBuilder.addFilter(new RequestLoggingFilter());
-        requestBuilder.addFilter(new ResponseLoggingFilter());
-        requestBuilder.addFilter(new SwaggerCoverageRestAssured(
-                new FileSystemOutputWriter(
-                        Paths.get("target/" + OUTPUT_DIRECTORY)
-                )
-        ));
-        requestBuilder.addFilter(new AllureRestAssured());
+        requestBuilder.setConfig(CONFIG);
+        requestBuilder.addFilters(FILTERS);
         requestBuilder.setContentType(ContentType.JSON);
         requestBuilder.setAccept(ContentType.JSON);
         return requestBuilder;
     }
 
     public static RequestSpecification superUserSpec() {
-        var requestBuilder = reqBuilder();
-        requestBuilder.setBaseUri("http://%s:%s@%s".formatted("", Config.getProperty("superUserToken"), Config.getProperty("host")));
-        return requestBuilder.build();
+        // Хост определяется первым: stand-in сервер при запуске может сам задать superUserToken
+        var host = host();
+        return cached("http://%s:%s@%s".formatted("", Config.getProperty("superUserToken"), host));
     }
 
     public static RequestSpecification unauthSpec() {
-        var requestBuilder = reqBuilder();
-        return requestBuilder.build();
+        return cached(null);
     }
 
     public static RequestSpecification authSpec(User user) {
-        var requestBuilder = reqBuilder();
-        requestBuilder.setBaseUri("http://%s:%s@%s"
-                .formatted(user.getUsername(), user.getPassword(), Config.getProperty("host")));
-        return requestBuilder.build();
+        return cached("http://%s:%s@%s"
+                .formatted(user.getUsername(), user.getPassword(), host()));
+    }
+
+    // При standIn=true запросы идут во встроенный stand-in сервер вместо TeamCity из свойства host
+    public static String host() {
+        return StandInServer.isEnabled() ? StandInServer.getHost() : Config.getProperty("host");
+    }
+
+    // baseUri содержит и учетные данные, и хост, поэтому служит ключом кеша
+    private static RequestSpecification cached(String baseUri) {
+        RequestSpecification prototype;
+        synchronized (SPEC_CACHE) {
+            prototype = SPEC_CACHE.computeIfAbsent(String.valueOf(baseUri), key -> {
+                var requestBuilder = reqBuilder();
+                if (baseUri != null) {
+                    requestBuilder.setBaseUri(baseUri);
+                }
+                return requestBuilder.build();
+            });
+        }
+        // Копия слиянием с образцом: настройки и фильтры уже готовы, собирать их заново не нужно
+        return new RequestSpecBuilder().addRequestSpecification(prototype).build();
+    }
+
+    private static final class SpecCache extends LinkedHashMap<String, RequestSpecification> {
+        private final int maxSize;
+
+        private SpecCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RequestSpecification> eldest) {
+            return size() > maxSize;
+        }
     }
-}
\ No newline at end of file
+}
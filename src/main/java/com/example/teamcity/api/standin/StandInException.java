@@ -0,0 +1,17 @@
+package com.example.teamcity.api.standin;
+
+/**
+ * Ошибка обработки запроса stand-in сервером: HTTP-статус и текст ответа.
+ */
+class StandInException extends RuntimeException {
+    private final int statusCode;
+
+    StandInException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+}
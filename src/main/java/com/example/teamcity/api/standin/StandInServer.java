@@ -0,0 +1,312 @@
+package com.example.teamcity.api.standin;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.spec.ModelObjectMapper;
+import com.example.teamcity.api.utils.NamedThreadFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
+import static org.apache.http.HttpStatus.SC_METHOD_NOT_ALLOWED;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+import static org.apache.http.HttpStatus.SC_NOT_MODIFIED;
+import static org.apache.http.HttpStatus.SC_NO_CONTENT;
+import static org.apache.http.HttpStatus.SC_OK;
+import static org.apache.http.HttpStatus.SC_UNAUTHORIZED;
+
+/**
+ * Встроенная замена TeamCity REST API для быстрых прогонов без сервера (свойство standIn=true).
+ * <p>
+ * Реализует эндпоинты из Endpoint (создание, чтение, изменение, удаление и постраничное чтение коллекций)
+ * и GET /app/rest/server. Состояние хранится в памяти (см. StandInState) и живет, пока жива JVM.
+ * Сервер слушает случайный свободный порт на loopback и запускается при первом обращении к {@link #getHost()}.
+ * <p>
+ * Авторизация - Basic, как у TeamCity: super user - пустое имя пользователя и токен superUserToken
+ * (если токен не задан, сервер генерирует его и выставляет системным свойством). Потоков обработки -
+ * standInThreads.
+ */
+public final class StandInServer {
+    private static final String REST_PREFIX = "/app/rest/";
+    private static final String SERVER_PATH = "/app/rest/server";
+    private static final String SUPER_USER_TOKEN_PROPERTY = "superUserToken";
+    private static final int THREADS = Config.getIntProperty("standInThreads", 16);
+    private static final int BACKLOG = 1024;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final Map<String, Endpoint> ENDPOINTS = new HashMap<>();
+    private static volatile String host;
+
+    static {
+        for (var endpoint : Endpoint.values()) {
+            ENDPOINTS.put(endpoint.getUrl(), endpoint);
+        }
+    }
+
+    private final StandInState state;
+    private final Instant startTime = Instant.now();
+
+    private StandInServer(String superUserToken) {
+        this.state = new StandInState(superUserToken);
+    }
+
+    public static boolean isEnabled() {
+        return Config.getBooleanProperty("standIn", false);
+    }
+
+    /**
+     * Адрес (host:port) запущенного stand-in сервера; при первом вызове сервер запускается.
+     */
+    public static String getHost() {
+        if (host == null) {
+            synchronized (StandInServer.class) {
+                if (host == null) {
+                    host = start();
+                }
+            }
+        }
+        return host;
+    }
+
+    private static String start() {
+        var superUserToken = Config.getProperty(SUPER_USER_TOKEN_PROPERTY);
+        if (superUserToken == null || superUserToken.isBlank()) {
+            superUserToken = UUID.randomUUID().toString().replace("-", "");
+            System.setProperty(SUPER_USER_TOKEN_PROPERTY, superUserToken);
+        }
+        // Без TCP_NODELAY заголовки и тело ответа уходят разными пакетами и каждый запрос ждет delayed ACK (~40 мс).
+        // Свойство читается при первом создании HttpServer
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        try {
+            var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+            server.createContext("/", new StandInServer(superUserToken)::handle);
+            server.setExecutor(Executors.newFixedThreadPool(THREADS, new NamedThreadFactory("stand-in")));
+            // Поток-диспетчер HttpServer наследует daemon у потока, вызвавшего start(), поэтому запускаем
+            // из daemon-потока: иначе сервер не даст JVM завершиться после тестов
+            var starter = new NamedThreadFactory("stand-in-starter").newThread(server::start);
+            starter.start();
+            starter.join();
+            var address = server.getAddress();
+            System.out.printf("TeamCity stand-in server started on %s:%d%n", address.getHostString(), address.getPort());
+            return address.getHostString() + ":" + address.getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start TeamCity stand-in server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting TeamCity stand-in server", e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                var principal = authenticate(exchange);
+                if (principal == null) {
+                    exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"TeamCity\"");
+                    send(exchange, SC_UNAUTHORIZED, "Authentication required\n"
+                            + "To login manually go to \"/login.html\" page");
+                    return;
+                }
+                route(exchange, principal);
+            } catch (StandInException e) {
+                send(exchange, e.getStatusCode(), e.getMessage());
+            } catch (RuntimeException e) {
+                send(exchange, 500, "Error has occurred during request processing: " + e);
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange, StandInState.Principal principal) throws IOException {
+        var path = exchange.getRequestURI().getPath();
+        var method = exchange.getRequestMethod();
+        if (path.equals(Endpoint.AUTH_SETTINGS.getUrl())) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, state.getAuthSettings());
+                case "PUT" -> sendJson(exchange, state.updateAuthSettings(readBody(exchange), principal));
+                default -> throw methodNotAllowed(method);
+            }
+            return;
+        }
+        if (path.equals(SERVER_PATH)) {
+            // Как TeamCity, выдает cookie сессии на запрос с Basic авторизацией (см. SessionRequest)
+            exchange.getResponseHeaders().add("Set-Cookie", "TCSESSIONID=%s; Path=/; HttpOnly"
+                    .formatted(UUID.randomUUID().toString().replace("-", "")));
+            sendJson(exchange, serverInfo());
+            return;
+        }
+        var collectionEnd = path.indexOf('/', REST_PREFIX.length());
+        var endpoint = ENDPOINTS.get(collectionEnd < 0 ? path : path.substring(0, collectionEnd));
+        if (endpoint == null || endpoint == Endpoint.AUTH_SETTINGS) {
+            throw new StandInException(SC_NOT_FOUND, "No resource found at " + path);
+        }
+        if (collectionEnd < 0) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, page(endpoint, query(exchange).get("locator")));
+                case "POST" -> sendJson(exchange, state.create(endpoint, readBody(exchange), principal));
+                default -> throw methodNotAllowed(method);
+            }
+            return;
+        }
+        var locator = path.substring(collectionEnd + 1);
+        if (locator.isEmpty() || locator.contains("/")) {
+            throw new StandInException(SC_NOT_FOUND, "No resource found at " + path);
+        }
+        switch (method) {
+            case "GET" -> {
+                var entity = state.read(endpoint, locator);
+                var etag = "\"" + entity.version() + "\"";
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(SC_NOT_MODIFIED, -1);
+                    return;
+                }
+                sendJson(exchange, fields(StandInState.view(endpoint, entity.json()), query(exchange).get("fields")));
+            }
+            case "PUT" -> sendJson(exchange, state.update(endpoint, locator, readBody(exchange), principal));
+            case "DELETE" -> {
+                state.delete(endpoint, locator, principal);
+                exchange.sendResponseHeaders(SC_NO_CONTENT, -1);
+            }
+            default -> throw methodNotAllowed(method);
+        }
+    }
+
+    private StandInState.Principal authenticate(HttpExchange exchange) {
+        var authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        var separator = credentials.indexOf(':');
+        return separator < 0 ? null
+                : state.authenticate(credentials.substring(0, separator), credentials.substring(separator + 1));
+    }
+
+    // Локатор коллекции: count, start и affectedProject:(id:<id>), остальные измерения не поддерживаются и игнорируются
+    private ObjectNode page(Endpoint endpoint, String locator) {
+        var count = Integer.MAX_VALUE;
+        var start = 0;
+        String affectedProject = null;
+        if (locator != null) {
+            for (var dimension : locator.split(",")) {
+                try {
+                    if (dimension.startsWith("affectedProject:(id:") && dimension.endsWith(")")) {
+                        affectedProject = dimension.substring("affectedProject:(id:".length(), dimension.length() - 1);
+                    } else if (dimension.startsWith("count:")) {
+                        count = Integer.parseInt(dimension.substring("count:".length()));
+                    } else if (dimension.startsWith("start:")) {
+                        start = Integer.parseInt(dimension.substring("start:".length()));
+                    }
+                } catch (NumberFormatException e) {
+                    throw new StandInException(SC_BAD_REQUEST, "Invalid locator dimension: " + dimension);
+                }
+            }
+        }
+        if (start < 0 || count < 0) {
+            throw new StandInException(SC_BAD_REQUEST, "Invalid locator: start and count should not be negative");
+        }
+        return state.page(endpoint, affectedProject, start, count);
+    }
+
+    // Поддерживается только верхний уровень fields=: name,id,project(id) оставит поля name, id и project целиком
+    private static JsonNode fields(ObjectNode json, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return json;
+        }
+        var result = JsonNodeFactory.instance.objectNode();
+        var depth = 0;
+        var name = new StringBuilder();
+        for (var c : (fields + ",").toCharArray()) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                var value = json.get(name.toString().trim());
+                if (value != null) {
+                    result.set(name.toString().trim(), value);
+                }
+                name.setLength(0);
+            } else if (depth == 0) {
+                name.append(c);
+            }
+        }
+        return result;
+    }
+
+    private ObjectNode serverInfo() {
+        return JsonNodeFactory.instance.objectNode()
+                .put("version", "stand-in")
+                .put("buildNumber", "stand-in")
+                .put("startTime", startTime.toString())
+                .put("currentTime", Instant.now().toString());
+    }
+
+    private static ObjectNode readBody(HttpExchange exchange) throws IOException {
+        try (var body = exchange.getRequestBody()) {
+            var json = ModelObjectMapper.get().readTree(body);
+            if (json == null || !json.isObject()) {
+                throw new StandInException(SC_BAD_REQUEST, "Request body should be a JSON object");
+            }
+            return (ObjectNode) json;
+        } catch (JsonProcessingException e) {
+            throw new StandInException(SC_BAD_REQUEST, "Cannot parse request body: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        var query = new HashMap<String, String>();
+        var rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (var parameter : rawQuery.split("&")) {
+                var separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static void sendJson(HttpExchange exchange, JsonNode json) throws IOException {
+        var body = ModelObjectMapper.get().writeValueAsBytes(json);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(SC_OK, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String message) throws IOException {
+        var body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static StandInException methodNotAllowed(String method) {
+        return new StandInException(SC_METHOD_NOT_ALLOWED, "HTTP method %s is not supported".formatted(method));
+    }
+}
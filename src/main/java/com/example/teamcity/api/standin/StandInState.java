@@ -0,0 +1,459 @@
+package com.example.teamcity.api.standin;
+
+import com.example.teamcity.api.enums.Endpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
+import static org.apache.http.HttpStatus.SC_FORBIDDEN;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+
+/**
+ * Состояние stand-in сервера в памяти: проекты, build type, пользователи и настройки авторизации.
+ * <p>
+ * Проверки повторяют поведение TeamCity, на которое опираются тесты: уникальность id, права SYSTEM_ADMIN
+ * и PROJECT_ADMIN (с учетом perProjectPermissions и вложенности проектов) и тексты ошибок.
+ * Все операции выполняются под одной блокировкой: каждая занимает микросекунды, поэтому это не ограничивает
+ * пропускную способность при тысячах запросов в секунду.
+ */
+final class StandInState {
+    static final String ROOT_PROJECT_ID = "_Root";
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+    private static final Pattern EXTERNAL_ID = Pattern.compile("[A-Za-z][A-Za-z0-9_]{0,224}");
+    private static final String SYSTEM_ADMIN = "SYSTEM_ADMIN";
+    private static final String PROJECT_ADMIN = "PROJECT_ADMIN";
+    private static final String GLOBAL_SCOPE = "g";
+    private static final String PROJECT_SCOPE_PREFIX = "p:";
+
+    private final Map<Endpoint, Map<String, Entity>> entities = new EnumMap<>(Endpoint.class);
+    private final ObjectNode authSettings = defaultAuthSettings();
+    private final String superUserToken;
+    private long version;
+    private long userIds;
+
+    StandInState(String superUserToken) {
+        this.superUserToken = superUserToken;
+        for (var endpoint : List.of(Endpoint.PROJECTS, Endpoint.BUILD_TYPES, Endpoint.USERS)) {
+            entities.put(endpoint, new LinkedHashMap<>());
+        }
+        var root = JSON.objectNode()
+                .put("id", ROOT_PROJECT_ID)
+                .put("name", "<Root project>");
+        entities.get(Endpoint.PROJECTS).put(ROOT_PROJECT_ID, new Entity(root, ++version));
+    }
+
+    /**
+     * Пользователь по учетным данным Basic-авторизации или null. Super user - пустое имя и superUserToken.
+     */
+    synchronized Principal authenticate(String username, String password) {
+        if (username.isEmpty()) {
+            return superUserToken.equals(password) ? Principal.SUPER_USER : null;
+        }
+        var user = findUser(username);
+        if (user == null || !password.equals(text(user.json(), "password"))) {
+            return null;
+        }
+        var perProjectPermissions = authSettings.path("perProjectPermissions").asBoolean(false);
+        var systemAdmin = false;
+        var adminProjects = new HashSet<String>();
+        for (var role : user.json().path("roles").path("role")) {
+            var roleId = text(role, "roleId");
+            var scope = text(role, "scope");
+            if (SYSTEM_ADMIN.equals(roleId)) {
+                systemAdmin = true;
+            } else if (PROJECT_ADMIN.equals(roleId)) {
+                // Без perProjectPermissions роли не привязаны к проектам и действуют глобально
+                adminProjects.add(!perProjectPermissions || scope == null || !scope.startsWith(PROJECT_SCOPE_PREFIX)
+                        ? ROOT_PROJECT_ID
+                        : scope.substring(PROJECT_SCOPE_PREFIX.length()));
+            }
+        }
+        return new Principal(username, systemAdmin, adminProjects);
+    }
+
+    synchronized ObjectNode create(Endpoint endpoint, ObjectNode body, Principal principal) {
+        return switch (endpoint) {
+            case PROJECTS -> createProject(body, principal);
+            case BUILD_TYPES -> createBuildType(body, principal);
+            case USERS -> createUser(body, principal);
+            default -> throw notFound(endpoint.getUrl());
+        };
+    }
+
+    synchronized Entity read(Endpoint endpoint, String locator) {
+        return find(endpoint, locator);
+    }
+
+    synchronized ObjectNode update(Endpoint endpoint, String locator, ObjectNode body, Principal principal) {
+        var entity = find(endpoint, locator);
+        var json = entity.json().deepCopy();
+        checkCanModify(endpoint, json, principal);
+        body.fields().forEachRemaining(field -> {
+            // id и пароль через PUT сущности не меняются
+            if (!"id".equals(field.getKey()) && !"password".equals(field.getKey()) && !field.getValue().isNull()) {
+                json.set(field.getKey(), field.getValue());
+            }
+        });
+        entities.get(endpoint).put(text(json, "id"), new Entity(json, ++version));
+        return view(endpoint, json);
+    }
+
+    synchronized void delete(Endpoint endpoint, String locator, Principal principal) {
+        var entity = find(endpoint, locator);
+        checkCanModify(endpoint, entity.json(), principal);
+        var id = text(entity.json(), "id");
+        if (endpoint == Endpoint.PROJECTS) {
+            if (ROOT_PROJECT_ID.equals(id)) {
+                throw new StandInException(SC_BAD_REQUEST, "Root project cannot be deleted.");
+            }
+            deleteProject(id);
+        } else {
+            entities.get(endpoint).remove(id);
+        }
+    }
+
+    /**
+     * Страница коллекции в формате TeamCity: count, href, nextHref (если есть следующая) и массив сущностей.
+     * start и count не отрицательные (проверяет StandInServer).
+     */
+    synchronized ObjectNode page(Endpoint endpoint, String affectedProject, int start, int count) {
+        var all = entities.get(endpoint).values().stream()
+                .filter(entity -> affectedProject == null || affects(affectedProject, endpoint, entity.json()))
+                .toList();
+        var page = JSON.objectNode();
+        var items = JSON.arrayNode();
+        // count по умолчанию Integer.MAX_VALUE: конец страницы считается в long, чтобы start + count не переполнялся
+        var end = (int) Math.min(all.size(), (long) start + count);
+        for (var i = start; i < end; i++) {
+            items.add(view(endpoint, all.get(i).json()));
+        }
+        var filter = affectedProject == null ? "" : "affectedProject:(id:%s),".formatted(affectedProject);
+        page.put("count", items.size());
+        page.put("href", "%s?locator=%scount:%d,start:%d".formatted(endpoint.getUrl(), filter, count, start));
+        if (end < all.size()) {
+            page.put("nextHref", "%s?locator=%scount:%d,start:%d".formatted(endpoint.getUrl(), filter, count, end));
+        }
+        page.set(endpoint.getCollectionField(), items);
+        return page;
+    }
+
+    synchronized ObjectNode getAuthSettings() {
+        return authSettings.deepCopy();
+    }
+
+    synchronized ObjectNode updateAuthSettings(ObjectNode body, Principal principal) {
+        if (!principal.systemAdmin()) {
+            throw accessDenied();
+        }
+        body.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                authSettings.set(field.getKey(), field.getValue());
+            }
+        });
+        return authSettings.deepCopy();
+    }
+
+    // Представление сущности в ответе: без пароля пользователя
+    static ObjectNode view(Endpoint endpoint, ObjectNode json) {
+        if (endpoint != Endpoint.USERS) {
+            return json;
+        }
+        var view = json.deepCopy();
+        view.remove("password");
+        return view;
+    }
+
+    private ObjectNode createProject(ObjectNode body, Principal principal) {
+        var name = text(body, "name");
+        if (name == null || name.isBlank()) {
+            throw new StandInException(SC_BAD_REQUEST, "Project name cannot be empty.");
+        }
+        var parentLocator = body.path("parentProject").isObject()
+                ? locatorOf((ObjectNode) body.get("parentProject"))
+                : ROOT_PROJECT_ID;
+        var parentId = text(find(Endpoint.PROJECTS, parentLocator).json(), "id");
+        if (!principal.canEditProject(parentId, this::parentOf)) {
+            throw notEnoughPermissions(parentId);
+        }
+        var id = text(body, "id");
+        if (id == null) {
+            id = name.replaceAll("[^A-Za-z0-9_]", "");
+        }
+        checkExternalId("Project", id);
+        var projects = entities.get(Endpoint.PROJECTS);
+        if (projects.containsKey(id)) {
+            throw new StandInException(SC_BAD_REQUEST, "Project ID \"%s\" is already used by another project".formatted(id));
+        }
+        for (var project : projects.values()) {
+            if (parentId.equals(text(project.json(), "parentProjectId")) && name.equals(text(project.json(), "name"))) {
+                throw new StandInException(SC_BAD_REQUEST, "Project with this name already exists.");
+            }
+        }
+        var json = JSON.objectNode()
+                .put("id", id)
+                .put("name", name)
+                .put("parentProjectId", parentId)
+                .put("href", Endpoint.PROJECTS.getUrl() + "/id:" + id);
+        projects.put(id, new Entity(json, ++version));
+        return json;
+    }
+
+    private ObjectNode createBuildType(ObjectNode body, Principal principal) {
+        if (!body.path("project").isObject()) {
+            throw new StandInException(SC_BAD_REQUEST, "Build type creation request should contain project node.");
+        }
+        var projectLocator = locatorOf((ObjectNode) body.get("project"));
+        var project = find(Endpoint.PROJECTS, projectLocator).json();
+        var projectId = text(project, "id");
+        if (!principal.canEditProject(projectId, this::parentOf)) {
+            throw notEnoughPermissions(projectId);
+        }
+        var name = text(body, "name");
+        if (name == null || name.isBlank()) {
+            throw new StandInException(SC_BAD_REQUEST, "When creating a build type, non empty name should be provided.");
+        }
+        var id = text(body, "id");
+        if (id == null) {
+            id = projectId + "_" + name.replaceAll("[^A-Za-z0-9_]", "");
+        }
+        checkExternalId("Build configuration or template", id);
+        var buildTypes = entities.get(Endpoint.BUILD_TYPES);
+        if (buildTypes.containsKey(id)) {
+            throw new StandInException(SC_BAD_REQUEST,
+                    "The build configuration / template ID \"%s\" is already used by another configuration or template"
+                            .formatted(id));
+        }
+        for (var buildType : buildTypes.values()) {
+            if (projectId.equals(text(buildType.json(), "projectId")) && name.equals(text(buildType.json(), "name"))) {
+                throw new StandInException(SC_BAD_REQUEST,
+                        "Build configuration with name \"%s\" already exists in project: \"%s\"".formatted(name, text(project, "name")));
+            }
+        }
+        var json = JSON.objectNode()
+                .put("id", id)
+                .put("name", name)
+                .put("projectName", text(project, "name"))
+                .put("projectId", projectId)
+                .put("href", Endpoint.BUILD_TYPES.getUrl() + "/id:" + id);
+        json.set("project", project.deepCopy());
+        var steps = body.path("steps").path("step");
+        json.set("steps", JSON.objectNode()
+                .put("count", steps.size())
+                .set("step", steps.isArray() ? steps.deepCopy() : JSON.arrayNode()));
+        buildTypes.put(id, new Entity(json, ++version));
+        return json;
+    }
+
+    private ObjectNode createUser(ObjectNode body, Principal principal) {
+        if (!principal.systemAdmin()) {
+            throw accessDenied();
+        }
+        var username = text(body, "username");
+        if (username == null || username.isBlank()) {
+            throw new StandInException(SC_BAD_REQUEST, "Username must not be empty when creating user.");
+        }
+        if (findUser(username) != null) {
+            throw new StandInException(SC_BAD_REQUEST, "Duplicate user account name");
+        }
+        var id = Long.toString(++userIds);
+        var json = JSON.objectNode()
+                .put("username", username)
+                .put("id", Long.parseLong(id))
+                .put("password", text(body, "password"))
+                .put("href", Endpoint.USERS.getUrl() + "/id:" + id);
+        var roles = JSON.arrayNode();
+        for (var role : body.path("roles").path("role")) {
+            var roleId = text(role, "roleId");
+            var scope = text(role, "scope");
+            if (scope != null && scope.startsWith(PROJECT_SCOPE_PREFIX)
+                    && !entities.get(Endpoint.PROJECTS).containsKey(scope.substring(PROJECT_SCOPE_PREFIX.length()))) {
+                throw new StandInException(SC_NOT_FOUND, "No project found by locator 'id:%s'."
+                        .formatted(scope.substring(PROJECT_SCOPE_PREFIX.length())));
+            }
+            roles.add(JSON.objectNode().put("roleId", roleId).put("scope", scope == null ? GLOBAL_SCOPE : scope));
+        }
+        json.set("roles", JSON.objectNode().set("role", roles));
+        entities.get(Endpoint.USERS).put(id, new Entity(json, ++version));
+        return view(Endpoint.USERS, json);
+    }
+
+    private void deleteProject(String id) {
+        var projects = entities.get(Endpoint.PROJECTS);
+        var subprojects = projects.values().stream()
+                .map(project -> text(project.json(), "id"))
+                .filter(projectId -> id.equals(parentOf(projectId)))
+                .toList();
+        subprojects.forEach(this::deleteProject);
+        entities.get(Endpoint.BUILD_TYPES).values().removeIf(buildType -> id.equals(text(buildType.json(), "projectId")));
+        projects.remove(id);
+    }
+
+    private void checkCanModify(Endpoint endpoint, ObjectNode json, Principal principal) {
+        var allowed = switch (endpoint) {
+            case PROJECTS -> principal.canEditProject(text(json, "id"), this::parentOf);
+            case BUILD_TYPES -> principal.canEditProject(text(json, "projectId"), this::parentOf);
+            case USERS -> principal.systemAdmin() || principal.username().equals(text(json, "username"));
+            default -> principal.systemAdmin();
+        };
+        if (!allowed) {
+            throw endpoint == Endpoint.BUILD_TYPES ? notEnoughPermissions(text(json, "projectId"))
+                    : endpoint == Endpoint.PROJECTS ? notEnoughPermissions(text(json, "id"))
+                    : accessDenied();
+        }
+    }
+
+    // Сущность относится к проекту, если он сам или его подпроект содержит ее (для проекта - он сам или его предок)
+    private boolean affects(String projectId, Endpoint endpoint, ObjectNode json) {
+        var current = switch (endpoint) {
+            case PROJECTS -> text(json, "id");
+            case BUILD_TYPES -> text(json, "projectId");
+            default -> null;
+        };
+        for (; current != null; current = parentOf(current)) {
+            if (current.equals(projectId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String parentOf(String projectId) {
+        var project = entities.get(Endpoint.PROJECTS).get(projectId);
+        return project == null ? null : text(project.json(), "parentProjectId");
+    }
+
+    private Entity findUser(String username) {
+        for (var user : entities.get(Endpoint.USERS).values()) {
+            if (username.equals(text(user.json(), "username"))) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    // Поддерживаются локаторы id:<id>, name:<name>, username:<username> и просто <id> (<username> для пользователей)
+    private Entity find(Endpoint endpoint, String locator) {
+        var dimensions = parseLocator(endpoint, locator);
+        var byKey = dimensions.size() == 1 ? dimensions.get("id") : null;
+        if (byKey != null) {
+            var entity = entities.get(endpoint).get(byKey);
+            if (entity != null) {
+                return entity;
+            }
+        } else {
+            for (var entity : entities.get(endpoint).values()) {
+                var matches = dimensions.entrySet().stream()
+                        .allMatch(dimension -> dimension.getValue().equals(entity.json().path(dimension.getKey()).asText(null)));
+                if (matches) {
+                    return entity;
+                }
+            }
+        }
+        throw new StandInException(SC_NOT_FOUND, "No %s found by locator '%s'."
+                .formatted(endpoint == Endpoint.BUILD_TYPES ? "build type nor template" : endpoint.getCollectionField(), locator));
+    }
+
+    private static Map<String, String> parseLocator(Endpoint endpoint, String locator) {
+        var dimensions = new LinkedHashMap<String, String>();
+        for (var dimension : locator.split(",")) {
+            var separator = dimension.indexOf(':');
+            if (separator < 0) {
+                dimensions.put(endpoint == Endpoint.USERS ? "username" : "id", dimension);
+            } else {
+                dimensions.put(dimension.substring(0, separator), dimension.substring(separator + 1));
+            }
+        }
+        return dimensions;
+    }
+
+    // Ссылка на проект в теле запроса: {"id": ...} или {"locator": ...}
+    private static String locatorOf(ObjectNode reference) {
+        var id = text(reference, "id");
+        if (id != null) {
+            return "id:" + id;
+        }
+        var locator = text(reference, "locator");
+        if (locator == null) {
+            throw new StandInException(SC_BAD_REQUEST, "Project reference should contain id or locator.");
+        }
+        return locator;
+    }
+
+    private static void checkExternalId(String kind, String id) {
+        if (!EXTERNAL_ID.matcher(id).matches()) {
+            throw new StandInException(SC_BAD_REQUEST, ("%s ID \"%s\" is invalid: ID should start with a latin letter "
+                    + "and contain only latin letters, digits and underscores (at most 225 characters).").formatted(kind, id));
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        var value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static StandInException notEnoughPermissions(String projectId) {
+        return new StandInException(SC_FORBIDDEN,
+                "You do not have enough permissions to edit project with id: %s".formatted(projectId));
+    }
+
+    private static StandInException accessDenied() {
+        return new StandInException(SC_FORBIDDEN,
+                "Access denied. Check the user has enough permissions to perform the operation.");
+    }
+
+    private static StandInException notFound(String path) {
+        return new StandInException(SC_NOT_FOUND, "No resource found at " + path);
+    }
+
+    private static ObjectNode defaultAuthSettings() {
+        var modules = JSON.arrayNode();
+        for (var module : List.of("Default", "Token-Auth", "HTTP-Basic")) {
+            modules.add(JSON.objectNode().put("name", module));
+        }
+        var settings = JSON.objectNode()
+                .put("allowGuest", false)
+                .put("guestUsername", "guest")
+                .put("welcomeText", "")
+                .put("collapseLoginForm", false)
+                .put("perProjectPermissions", false)
+                .put("emailVerification", false);
+        settings.set("modules", JSON.objectNode().set("module", modules));
+        return settings;
+    }
+
+    /**
+     * Сущность и ее версия: версия увеличивается при каждом изменении и отдается как ETag.
+     */
+    record Entity(ObjectNode json, long version) {
+    }
+
+    /**
+     * Авторизованный пользователь: системный администратор или администратор перечисленных проектов
+     * (и всех их подпроектов).
+     */
+    record Principal(String username, boolean systemAdmin, Set<String> adminProjects) {
+        static final Principal SUPER_USER = new Principal("", true, Set.of());
+
+        private boolean canEditProject(String projectId, UnaryOperator<String> parentOf) {
+            if (systemAdmin) {
+                return true;
+            }
+            for (var id = projectId; id != null; id = parentOf.apply(id)) {
+                if (adminProjects.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.teamcity.api.utils;
+
+import com.example.teamcity.api.config.Config;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Экспоненциальная задержка между попытками со случайным разбросом (jitter): перед попыткой n ждем
+ * от половины до целого min(max, initial * multiplier^n). Разброс не дает параллельным тестам
+ * опрашивать сервер синхронно.
+ */
+public record Backoff(Duration initial, Duration max, double multiplier) {
+
+    public Backoff {
+        if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0 || multiplier < 1) {
+            throw new IllegalStateException("Invalid backoff: initial=%s, max=%s, multiplier=%s"
+                    .formatted(initial, max, multiplier));
+        }
+    }
+
+    /**
+     * Настройки из свойств {prefix}InitialDelayMs, {prefix}MaxDelayMs (множитель 2).
+     */
+    public static Backoff fromConfig(String prefix, int initialDelayMs, int maxDelayMs) {
+        return new Backoff(
+                Duration.ofMillis(Config.getIntProperty(prefix + "InitialDelayMs", initialDelayMs)),
+                Duration.ofMillis(Config.getIntProperty(prefix + "MaxDelayMs", maxDelayMs)),
+                2);
+    }
+
+    public Duration delay(int attempt) {
+        var ceiling = Math.min(max.toNanos(), initial.toNanos() * Math.pow(multiplier, attempt));
+        var half = (long) ceiling / 2;
+        return Duration.ofNanos(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.teamcity.api.utils;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Повторяет проверку с задержками {@link Backoff}, пока она не вернет значение или не выйдет время.
+ * <p>
+ * Проверка сообщает "еще не готово", возвращая null или выбрасывая исключение (RuntimeException
+ * или AssertionError, например от проверки статуса RestAssured). Если время вышло, выбрасывается
+ * IllegalStateException с последней ошибкой проверки в качестве причины.
+ */
+public final class Poller {
+
+    private Poller() {
+    }
+
+    public static <T> Result<T> poll(String description, Duration timeout, Backoff backoff, Supplier<T> check) {
+        var start = System.nanoTime();
+        var deadline = start + timeout.toNanos();
+        Throwable lastError = null;
+        for (var attempt = 1; ; attempt++) {
+            try {
+                var value = check.get();
+                if (value != null) {
+                    return new Result<>(value, attempt, Duration.ofNanos(System.nanoTime() - start));
+                }
+                lastError = null;
+            } catch (RuntimeException | AssertionError e) {
+                lastError = e;
+            }
+            var delay = backoff.delay(attempt - 1).toNanos();
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("%s: not done after %d attempts in %s"
+                        .formatted(description, attempt, timeout), lastError);
+            }
+            try {
+                Thread.sleep(Duration.ofNanos(Math.min(delay, remaining)).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting: " + description, e);
+            }
+        }
+    }
+
+    /**
+     * Результат проверки, число попыток и сколько времени прошло до успешной.
+     */
+    public record Result<T>(T value, int attempts, Duration waited) {
+    }
+}
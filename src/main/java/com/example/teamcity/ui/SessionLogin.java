@@ -0,0 +1,32 @@
+package com.example.teamcity.ui;
+
+import com.codeborne.selenide.Selenide;
+import com.codeborne.selenide.WebDriverRunner;
+import com.example.teamcity.api.models.User;
+import com.example.teamcity.api.requests.SessionRequest;
+import com.example.teamcity.api.spec.Specifications;
+import io.qameta.allure.Step;
+import org.openqa.selenium.Cookie;
+
+/**
+ * Быстрый логин без формы входа: сессия TeamCity создается запросом по API с теми же учетными данными,
+ * что у Specifications.authSpec, и ее cookie подставляется в браузер. После логина тест сразу открывает
+ * нужную страницу. Сам сценарий входа проверяется через LoginPage.
+ */
+public final class SessionLogin {
+    // Cookie можно добавить только для домена открытой страницы, поэтому сначала открывается легкий
+    // статический ресурс TeamCity вместо полноценной страницы
+    private static final String LIGHTWEIGHT_URL = "/favicon.ico";
+
+    private SessionLogin() {
+    }
+
+    @Step("Login as user {user.username} via session cookie")
+    public static void login(User user) {
+        var sessionId = new SessionRequest(Specifications.authSpec(user)).create();
+        Selenide.open(LIGHTWEIGHT_URL);
+        var cookies = WebDriverRunner.getWebDriver().manage();
+        cookies.deleteCookieNamed(SessionRequest.SESSION_COOKIE);
+        cookies.addCookie(new Cookie(SessionRequest.SESSION_COOKIE, sessionId, "/"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.teamcity.ui;
+
+import com.codeborne.selenide.Configuration;
+import com.codeborne.selenide.WebDriverRunner;
+import com.example.teamcity.api.config.Config;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Пул удаленных браузерных сессий, переиспользуемых между UI-тестами.
+ * <p>
+ * Вместо закрытия браузера после каждого теста сессия возвращается в пул: у нее удаляются cookies,
+ * очищаются localStorage и sessionStorage и открывается about:blank. Сессия закрывается и при следующем
+ * запросе создается заново, если тест упал или она использована webDriverMaxUses раз.
+ * <p>
+ * Одновременно открыто не больше size сессий (по числу потоков TestNG, свойство webDriverPoolSize переопределяет).
+ * Поток, взявший сессию, привязывает ее к Selenide через WebDriverRunner.setWebDriver.
+ */
+public final class WebDriverPool {
+    private static final int MAX_USES = Config.getIntProperty("webDriverMaxUses", 20);
+    private static final LinkedBlockingQueue<Session> IDLE = new LinkedBlockingQueue<>();
+    private static final Set<Session> ALL = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+    private static volatile Semaphore permits = new Semaphore(1);
+
+    private WebDriverPool() {
+    }
+
+    public static void setSize(int size) {
+        permits = new Semaphore(Config.getIntProperty("webDriverPoolSize", Math.max(size, 1)));
+    }
+
+    /**
+     * Берет свободную сессию (или создает новую) и делает ее текущей для Selenide в этом потоке.
+     */
+    public static void acquire() {
+        var currentPermits = permits;
+        currentPermits.acquireUninterruptibly();
+        try {
+            var session = IDLE.poll();
+            if (session == null) {
+                session = new Session(createDriver(), currentPermits);
+                ALL.add(session);
+            }
+            CURRENT.set(session);
+            WebDriverRunner.setWebDriver(session.driver);
+        } catch (RuntimeException e) {
+            currentPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает сессию текущего потока в пул. После упавшего теста сессия закрывается: ее состояние неизвестно.
+     */
+    public static void release(boolean failed) {
+        var session = CURRENT.get();
+        if (session == null) {
+            return;
+        }
+        CURRENT.remove();
+        try {
+            session.uses++;
+            if (failed || session.uses >= MAX_USES || !reset(session.driver)) {
+                quit(session);
+            } else {
+                IDLE.add(session);
+            }
+        } finally {
+            session.permits.release();
+        }
+    }
+
+    public static void quitAll() {
+        ALL.forEach(WebDriverPool::quit);
+        IDLE.clear();
+    }
+
+    // Возвращает false, если сессию не удалось очистить
+    private static boolean reset(WebDriver driver) {
+        try {
+            if (driver.getCurrentUrl().startsWith("http")) {
+                ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    private static void quit(Session session) {
+        ALL.remove(session);
+        try {
+            session.driver.quit();
+        } catch (WebDriverException e) {
+            // Сессия уже недоступна, например удалена Selenoid по таймауту
+        }
+    }
+
+    // Те же настройки, что Selenide использует для удаленного браузера: browser, remote, browserCapabilities, browserSize
+    private static WebDriver createDriver() {
+        var capabilities = new MutableCapabilities();
+        capabilities.setCapability(CapabilityType.BROWSER_NAME, Configuration.browser);
+        capabilities = capabilities.merge(Configuration.browserCapabilities);
+        RemoteWebDriver driver;
+        try {
+            driver = new RemoteWebDriver(new URL(Configuration.remote), capabilities);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid remote WebDriver URL: " + Configuration.remote, e);
+        }
+        if (Configuration.browserSize != null) {
+            var size = Configuration.browserSize.split("x");
+            driver.manage().window().setSize(new Dimension(Integer.parseInt(size[0]), Integer.parseInt(size[1])));
+        }
+        return driver;
+    }
+
+    private static final class Session {
+        private final WebDriver driver;
+        // Семафор пула, из которого выдана сессия (размер пула могут поменять между прогонами)
+        private final Semaphore permits;
+        private int uses;
+
+        private Session(WebDriver driver, Semaphore permits) {
+            this.driver = driver;
+            this.permits = permits;
+        }
+    }
+}
@@ -5,14 +5,18 @@ import lombok.Getter;
 
 @Getter
 public class ProjectElement extends BasePageElement {
+    public static final String NAME_SELECTOR = "span[class*='MiddleEllipsis']";
+    public static final String LINK_SELECTOR = "a";
+    public static final String BUTTON_SELECTOR = "button";
+
     private final SelenideElement name;
     private final SelenideElement link;
     private final SelenideElement button;
 
     public ProjectElement(SelenideElement element) {
         super(element);
-        this.name = find("span[class*='MiddleEllipsis']");
-        this.link = find("a");
-        this.button = find("button");
+        this.name = find(NAME_SELECTOR);
+        this.link = find(LINK_SELECTOR);
+        this.button = find(BUTTON_SELECTOR);
     }
 }
@@ -0,0 +1,16 @@
+package com.example.teamcity.ui.elements;
+
+import java.util.Map;
+
+/**
+ * Данные элемента списка проектов, считанные одним скриптом (см. BasePage.extractPageElements).
+ */
+public record ProjectElementData(String name, String link) {
+    public static final Map<String, String> FIELDS = Map.of(
+            "name", ProjectElement.NAME_SELECTOR,
+            "link", ProjectElement.LINK_SELECTOR + "@href");
+
+    public static ProjectElementData from(Map<String, String> fields) {
+        return new ProjectElementData(fields.get("name"), fields.get("link"));
+    }
+}
@@ -1,19 +1,61 @@
 package com.example.teamcity.ui.pages;
 
 import com.codeborne.selenide.ElementsCollection;
+import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.SelenideElement;
 import com.example.teamcity.ui.elements.BasePageElement;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 public abstract class BasePage {
     protected static final Duration BASE_WAITING = Duration.ofSeconds(30);
     protected static final Duration LONG_WAITING = Duration.ofMinutes(5);
 
+    // Для каждого элемента и каждого поля: текст дочернего элемента по селектору
+    // или значение атрибута, если поле задано как "селектор@атрибут" (пустой селектор - сам элемент)
+    private static final String EXTRACT_SCRIPT = """
+            var fields = arguments[1];
+            return arguments[0].map(function (element) {
+                var data = {};
+                Object.keys(fields).forEach(function (name) {
+                    var field = fields[name];
+                    var at = field.lastIndexOf('@');
+                    var selector = at < 0 ? field : field.substring(0, at);
+                    var child = selector ? element.querySelector(selector) : element;
+                    data[name] = child == null ? null
+                            : at < 0 ? child.innerText.trim() : child.getAttribute(field.substring(at + 1));
+                });
+                return data;
+            });
+            """;
+
     protected <T extends BasePageElement> List<T> generatePageElements(
             ElementsCollection collection, Function<SelenideElement, T> creator) {
         return collection.stream().map(creator).toList();
     }
+
+    /**
+     * Считывает поля всех элементов коллекции одним скриптом вместо отдельных запросов к WebDriver
+     * на каждый элемент и поле. Возвращает значения на момент вызова, без ожиданий.
+     *
+     * @param fields имя поля -> CSS селектор внутри элемента, "селектор@атрибут" для значения атрибута
+     */
+    protected <T> List<T> extractPageElements(
+            ElementsCollection collection, Map<String, String> fields, Function<Map<String, String>, T> creator) {
+        // snapshot ищет элементы один раз, дальше WebElement берутся из него без запросов к браузеру
+        var elements = collection.snapshot().stream().map(SelenideElement::toWebElement).toList();
+        if (elements.isEmpty()) {
+            return List.of();
+        }
+        List<Map<String, Object>> data = Selenide.executeJavaScript(EXTRACT_SCRIPT, elements, fields);
+        return data.stream().map(values -> {
+            var strings = new HashMap<String, String>();
+            values.forEach((name, value) -> strings.put(name, value == null ? null : value.toString()));
+            return creator.apply(strings);
+        }).toList();
+    }
 }
@@ -1,10 +1,12 @@
 package com.example.teamcity.ui.pages;
 
+import com.codeborne.selenide.CollectionCondition;
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.ElementsCollection;
 import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.SelenideElement;
 import com.example.teamcity.ui.elements.ProjectElement;
+import com.example.teamcity.ui.elements.ProjectElementData;
 
 import java.util.List;
 
@@ -13,7 +15,9 @@ import static com.codeborne.selenide.Selenide.$$;
 
 public class ProjectsPage extends BasePage {
     private static final String PROJECT_URL = "/favorite/projects";
-    private ElementsCollection projectElements = $$("div[class*='Subproject__container']");
+    private static final String PROJECT_SELECTOR = "div[class*='Subproject__container']";
+    private ElementsCollection projectElements = $$(PROJECT_SELECTOR);
+    private ElementsCollection projectNames = $$(PROJECT_SELECTOR + " " + ProjectElement.NAME_SELECTOR);
     private final SelenideElement header = $(".MainPanel__router--gF > div");
 
     // ElementsCollection -> List<ProjectElement>
@@ -29,4 +33,11 @@ public class ProjectsPage extends BasePage {
     public List<ProjectElement> getProjects() {
         return generatePageElements(projectElements, ProjectElement::new);
     }
+
+    // Имена и ссылки всех проектов за один запрос к браузеру, после того как в списке появился проект projectName:
+    // список подгружается частями, и непустой список еще не значит, что нужный проект уже отрисован
+    public List<ProjectElementData> getProjectsData(String projectName) {
+        projectNames.shouldHave(CollectionCondition.itemWithText(projectName), BASE_WAITING);
+        return extractPageElements(projectElements, ProjectElementData.FIELDS, ProjectElementData::from);
+    }
 }
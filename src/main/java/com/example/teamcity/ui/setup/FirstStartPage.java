@@ -3,6 +3,7 @@ package com.example.teamcity.ui.setup;
 import com.codeborne.selenide.Condition;
 import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.SelenideElement;
+import com.example.teamcity.api.readiness.ServerReadiness;
 import com.example.teamcity.ui.pages.BasePage;
 
 import static com.codeborne.selenide.Selenide.$;
@@ -18,7 +19,10 @@ public class FirstStartPage extends BasePage {
         restoreButton.shouldBe(Condition.visible, LONG_WAITING);
     }
 
+    // Страница открывается, когда сервер уже отвечает по HTTP, но кнопки первого запуска
+    // могут появиться позже, поэтому они по-прежнему ждутся LONG_WAITING
     public static FirstStartPage open() {
+        ServerReadiness.awaitWebUi();
         return Selenide.open("/", FirstStartPage.class);
     }
 
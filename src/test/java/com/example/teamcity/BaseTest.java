@@ -1,29 +1,131 @@
 package com.example.teamcity;
 
+import com.example.teamcity.api.config.Config;
 import com.example.teamcity.api.generators.TestDataStorage;
+import com.example.teamcity.api.logging.RequestLog;
+import com.example.teamcity.api.metrics.RestMetrics;
 import com.example.teamcity.api.models.TestData;
 import com.example.teamcity.api.requests.CheckedRequests;
+import com.example.teamcity.api.replay.RecordReplayFilter;
+import com.example.teamcity.api.requests.ReadCache;
+import com.example.teamcity.api.spec.BatchingCoverageOutputWriter;
+import com.example.teamcity.api.spec.HttpConnectionPool;
 import com.example.teamcity.api.spec.Specifications;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
 import org.testng.asserts.SoftAssert;
 
 import static com.example.teamcity.api.generators.TestDataGenerator.generate;
 
 public class BaseTest {
-    protected SoftAssert softy;
+    // При parallel="methods" методы одного класса выполняются одновременно на одном экземпляре,
+    // поэтому soft assert и тестовые данные хранятся отдельно для каждого потока
+    private static final ThreadLocal<SoftAssert> SOFTY = new ThreadLocal<>();
+    private static final ThreadLocal<TestData> TEST_DATA = new ThreadLocal<>();
     protected CheckedRequests superUserCheckRequests = new CheckedRequests(Specifications.superUserSpec());
-    protected TestData testData;
+
+    @BeforeSuite(alwaysRun = true)
+    public void deleteLeftoverEntities() {
+        // Удаляем сущности, оставшиеся от прогона, который не дошел до конца очистки
+        TestDataStorage.deleteLeftovers();
+    }
 
     @BeforeMethod(alwaysRun = true)
     public void beforeTest() {
-        softy = new SoftAssert();
-        testData = generate();
+        SOFTY.set(new SoftAssert());
+        TEST_DATA.set(generate());
+        RequestLog.clear();
     }
 
     @AfterMethod(alwaysRun = true)
-    public void afterTest() {
-        softy.assertAll();
-        TestDataStorage.getStorage().deleteCreatedEntities();
+    public void afterTest(ITestResult result) {
+        // В режиме requestLogging=onFailure запросы упавшего теста печатаются только сейчас
+        if (result.getStatus() == ITestResult.FAILURE) {
+            RequestLog.dump();
+        }
+        AssertionError softFailure = null;
+        try {
+            softy().assertAll();
+        } catch (AssertionError e) {
+            RequestLog.dump();
+            softFailure = e;
+        }
+        SOFTY.remove();
+        TEST_DATA.remove();
+        try {
+            // Исход теста известен только после soft assert'ов, поэтому ресурсы подклассов освобождаются здесь
+            afterAssertions(result.getStatus() != ITestResult.SUCCESS || softFailure != null);
+        } finally {
+            // Удаляем и после упавших проверок: реестр у каждого потока свой, и следующий тест его уже не очистит
+            try {
+                TestDataStorage.getStorage().deleteCreatedEntities();
+            } catch (RuntimeException e) {
+                // Удаления шли в пуле очистки, но их обмены записаны в буфер этого теста
+                RequestLog.dump();
+                if (softFailure == null) {
+                    throw e;
+                }
+                softFailure.addSuppressed(e);
+            }
+        }
+        if (softFailure != null) {
+            throw softFailure;
+        }
+    }
+
+    /**
+     * Вызывается в afterTest после проверки soft assert'ов. failed - тест упал, в том числе только на soft assert'ах.
+     */
+    protected void afterAssertions(boolean failed) {
+    }
+
+    protected SoftAssert softy() {
+        return SOFTY.get();
+    }
+
+    protected TestData testData() {
+        return TEST_DATA.get();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void awaitDeferredCleanup() {
+        TestDataStorage.awaitDeferredCleanup();
+        // Сущности прогона, которые очистка пропустила, ищутся на сервере и удаляются (включается leakSweep=true):
+        // поиск читает все сущности сервера, поэтому по умолчанию выключен
+        try {
+            if (Config.getBooleanProperty("leakSweep", false)) {
+                TestDataStorage.sweepLeakedEntities();
+            }
+        } finally {
+            // Индекс записанных HTTP-обменов пишется сейчас, а не только в shutdown hook
+            RecordReplayFilter.checkpoint();
+        }
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void finishSwaggerCoverage() {
+        // Записи покрытия копятся в фоне, в target/swagger-coverage-output они раскладываются здесь
+        BatchingCoverageOutputWriter.finish();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void reportConnectionPoolStats() {
+        // Статистика пула соединений помогает подобрать httpMaxPerRoute под один узел TeamCity
+        System.out.println("HTTP connection pool: " + HttpConnectionPool.getStats());
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void exportRestMetrics() {
+        // Задержки и статусы REST-запросов по эндпоинтам: target/rest-metrics.json и вложение в Allure
+        RestMetrics.export();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void exportReadCacheStats() {
+        // Попадания и промахи клиентского кеша чтений по эндпоинтам: target/read-cache-stats.json и вложение в Allure
+        ReadCache.export();
     }
 }
@@ -3,6 +3,7 @@ package com.example.teamcity.api;
 import com.example.teamcity.BaseTest;
 import com.example.teamcity.api.models.AuthModules;
 import com.example.teamcity.api.models.ServerAuthSettings;
+import com.example.teamcity.api.readiness.ServerReadiness;
 import com.example.teamcity.api.requests.ServerAuthRequest;
 import com.example.teamcity.api.spec.Specifications;
 import org.testng.annotations.AfterSuite;
@@ -17,6 +18,7 @@ public class BaseApiTest extends BaseTest {
 
     @BeforeSuite(alwaysRun = true)
     public void setUpServerAuthSettings() {
+        ServerReadiness.awaitRestApi();
         // Получаем текущие настройки perProjectPermissions
         perProjectPermissions = serverAuthRequest.read().getPerProjectPermissions();
 
@@ -0,0 +1,33 @@
+package com.example.teamcity.api;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.load.LoadProfile;
+import com.example.teamcity.api.load.LoadRunner;
+import com.example.teamcity.api.load.LoadScenarios;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+@Test(groups = {"Load"})
+public class LoadTest extends BaseApiTest {
+    @Test(description = "Project and build type CRUD should meet latency and error rate SLO under target load")
+    public void projectBuildTypeCrudLoadTest() {
+        // Нагрузочный прогон долгий, поэтому запускается только явно: -DloadTest=true
+        if (!Config.getBooleanProperty("loadTest", false)) {
+            throw new SkipException("Load test is disabled, set -DloadTest=true to run it");
+        }
+
+        var report = LoadRunner.run(LoadScenarios.projectBuildTypeCrud(superUserCheckRequests), LoadProfile.fromConfig());
+        report.export();
+
+        // Проверяем SLO по каждому шагу сценария
+        var maxErrorRate = Config.getIntProperty("loadMaxErrorRatePercent", 1) / 100.0;
+        var p99SloMs = Config.getIntProperty("loadP99SloMs", 2000);
+        report.steps().forEach((step, stepReport) -> {
+            softy().assertTrue(stepReport.errorRate() <= maxErrorRate,
+                    "Error rate of %s is %.2f%%".formatted(step, stepReport.errorRate() * 100));
+            softy().assertTrue(stepReport.p99Ms() <= p99SloMs,
+                    "p99 latency of %s is %.1f ms".formatted(step, stepReport.p99Ms()));
+        });
+        softy().assertEquals(report.dropped(), 0L, "Dropped iterations");
+    }
+}
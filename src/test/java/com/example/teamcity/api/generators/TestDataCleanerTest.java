@@ -0,0 +1,77 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.enums.Endpoint;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.teamcity.api.enums.Endpoint.AUTH_SETTINGS;
+import static com.example.teamcity.api.enums.Endpoint.BUILD_TYPES;
+import static com.example.teamcity.api.enums.Endpoint.PROJECTS;
+import static com.example.teamcity.api.enums.Endpoint.USERS;
+
+/**
+ * План очистки созданных тестом сущностей (TestDataStorage.deleteCreatedEntities, TestDataCleaner): порядок ярусов
+ * и build type, которые удаляются каскадно. План строится без запросов, поэтому сервер не нужен.
+ */
+@Test(groups = {"Regression"})
+public class TestDataCleanerTest {
+
+    @Test(description = "Build types should be deleted in an earlier tier than projects", groups = {"Positive"})
+    public void buildTypesTierPrecedesProjectsTierTest() {
+        var softy = new SoftAssert();
+        var plan = TestDataCleaner.plan(Map.of(
+                PROJECTS, List.of("project"),
+                BUILD_TYPES, List.of("buildType"),
+                USERS, List.of("user"),
+                AUTH_SETTINGS, List.of("settings")));
+
+        softy.assertTrue(tierOf(plan, BUILD_TYPES) < tierOf(plan, PROJECTS), "Plan: " + plan);
+        softy.assertEquals(tierOf(plan, AUTH_SETTINGS), -1, "Auth settings should not be deleted");
+        softy.assertEquals(plan.get(tierOf(plan, USERS)).get(USERS), List.of("user"));
+        softy.assertTrue(TestDataCleaner.plan(Map.of(PROJECTS, List.of())).isEmpty(), "Empty tiers should be skipped");
+        softy.assertAll();
+    }
+
+    @Test(description = "Build type of a project created by the test should be deleted by cascade only",
+            groups = {"Positive"})
+    public void cascadedBuildTypeIsNotDeletedSeparatelyTest() {
+        var softy = new SoftAssert();
+        var entities = Map.of(PROJECTS, List.of("project"), BUILD_TYPES, List.of("buildType"));
+
+        var cascaded = TestDataStorage.cascadedBuildTypes(entities, Map.of("buildType", "project"));
+        var toDelete = TestDataStorage.withoutCascaded(entities, cascaded);
+
+        softy.assertEquals(cascaded, Map.of("buildType", "project"));
+        softy.assertEquals(toDelete.get(BUILD_TYPES), List.of(), "Build type should not be deleted separately");
+        softy.assertEquals(toDelete.get(PROJECTS), List.of("project"), "Project should be deleted");
+        softy.assertAll();
+    }
+
+    @Test(description = "Build type of a project not created by the test should be deleted on its own",
+            groups = {"Positive"})
+    public void buildTypeOfForeignProjectIsDeletedTest() {
+        var softy = new SoftAssert();
+        // Проект создан не тестом, поэтому в очистку не попадает
+        var entities = Map.of(PROJECTS, List.<String>of(), BUILD_TYPES, List.of("buildType"));
+
+        var cascaded = TestDataStorage.cascadedBuildTypes(entities, Map.of("buildType", "foreignProject"));
+        var plan = TestDataCleaner.plan(TestDataStorage.withoutCascaded(entities, cascaded));
+
+        softy.assertTrue(cascaded.isEmpty(), "Cascaded: " + cascaded);
+        softy.assertEquals(plan, List.of(Map.of(BUILD_TYPES, List.of("buildType"))),
+                "Only the build type should be deleted");
+        softy.assertAll();
+    }
+
+    private static int tierOf(List<Map<Endpoint, List<String>>> plan, Endpoint endpoint) {
+        for (var i = 0; i < plan.size(); i++) {
+            if (plan.get(i).containsKey(endpoint)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
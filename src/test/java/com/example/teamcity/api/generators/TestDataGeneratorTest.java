@@ -0,0 +1,193 @@
+package com.example.teamcity.api.generators;
+
+import com.example.teamcity.api.annotations.Optional;
+import com.example.teamcity.api.annotations.Parameterizable;
+import com.example.teamcity.api.annotations.Random;
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.models.Roles;
+import com.example.teamcity.api.models.Steps;
+import com.example.teamcity.api.models.TestData;
+import com.example.teamcity.api.models.User;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static com.example.teamcity.api.generators.TestDataGenerator.generate;
+
+/**
+ * Генерация по кешированному плану (GenerationPlan) должна давать тот же результат, что и исходная генерация
+ * через рефлексию на каждом вызове. Случайные строки сравниваются только по наличию и префиксу.
+ */
+@Test(groups = {"Regression"})
+public class TestDataGeneratorTest {
+
+    @Test(description = "Generated TestData should match reflection-based generation", groups = {"Positive"})
+    public void generateTestDataMatchesReflectionTest() {
+        var softy = new SoftAssert();
+        var planned = generate();
+        var reflected = reflectionGenerate();
+
+        assertSameShape(softy, "testData", planned, reflected);
+        // BuildType должен ссылаться на Project из того же TestData, а не на новый
+        softy.assertSame(planned.getBuildType().getProject(), planned.getProject());
+        softy.assertSame(reflected.getBuildType().getProject(), reflected.getProject());
+        softy.assertAll();
+    }
+
+    @Test(description = "Parameters should be applied the same way as by reflection-based generation", groups = {"Positive"})
+    public void generateWithParametersMatchesReflectionTest() {
+        var softy = new SoftAssert();
+        var project = generate(Project.class);
+        List<Object[]> cases = List.of(
+                new Object[]{BuildType.class, new Object[0]},
+                new Object[]{BuildType.class, new Object[]{"custom_id"}},
+                new Object[]{BuildType.class, new Object[]{"custom_id", project}},
+                new Object[]{Roles.class, new Object[]{"PROJECT_ADMIN", "p:" + project.getId()}},
+                new Object[]{Roles.class, new Object[]{"PROJECT_ADMIN"}},
+                new Object[]{User.class, new Object[0]},
+                new Object[]{Steps.class, new Object[0]});
+        for (var testCase : cases) {
+            var type = ((Class<?>) testCase[0]).asSubclass(BaseModel.class);
+            var parameters = (Object[]) testCase[1];
+            assertSameShape(softy, type.getSimpleName() + Arrays.toString(parameters),
+                    generate(type, parameters), reflectionGenerate(Collections.emptyList(), type, parameters));
+        }
+        softy.assertAll();
+    }
+
+    @Test(description = "Previously generated models should be reused the same way as by reflection-based generation",
+            groups = {"Positive"})
+    public void generateWithGeneratedModelsMatchesReflectionTest() {
+        var softy = new SoftAssert();
+        var project = generate(Project.class);
+        var planned = generate(List.of(project), BuildType.class, "custom_id");
+        var reflected = reflectionGenerate(List.of(project), BuildType.class, "custom_id");
+
+        assertSameShape(softy, "buildType", planned, reflected);
+        softy.assertSame(planned.getProject(), project);
+        softy.assertSame(reflected.getProject(), project);
+        softy.assertAll();
+    }
+
+    @Test(description = "Batch and stream generation should produce independent TestData graphs", groups = {"Positive"})
+    public void generateBatchAndStreamTest() {
+        var softy = new SoftAssert();
+        var batch = new ArrayList<TestData>(TestDataGenerator.generateBatch(20, true));
+        batch.addAll(TestDataGenerator.generateStream().limit(5).toList());
+
+        softy.assertEquals(batch.size(), 25);
+        var projectIds = batch.stream().map(testData -> testData.getProject().getId()).distinct().count();
+        softy.assertEquals(projectIds, 25L, "Project ids should be unique across the batch");
+        for (var testData : batch) {
+            softy.assertSame(testData.getBuildType().getProject(), testData.getProject());
+        }
+        softy.assertAll();
+    }
+
+    // Поля сравниваются рекурсивно: @Random строки - по наличию и префиксу, модели и списки моделей - по содержимому,
+    // остальные поля - по значению
+    private static void assertSameShape(SoftAssert softy, String path, Object planned, Object reflected) {
+        if (planned == null || reflected == null) {
+            softy.assertEquals(planned, reflected, path);
+            return;
+        }
+        softy.assertEquals(planned.getClass(), reflected.getClass(), path);
+        for (var field : planned.getClass().getDeclaredFields()) {
+            var fieldPath = path + "." + field.getName();
+            var plannedValue = read(field, planned);
+            var reflectedValue = read(field, reflected);
+            if (field.isAnnotationPresent(Random.class) && String.class.equals(field.getType())
+                    && !Objects.equals(plannedValue, reflectedValue)) {
+                softy.assertTrue(plannedValue != null && plannedValue.toString().startsWith("test_"), fieldPath);
+                softy.assertTrue(reflectedValue != null && reflectedValue.toString().startsWith("test_"), fieldPath);
+            } else if (plannedValue instanceof BaseModel) {
+                assertSameShape(softy, fieldPath, plannedValue, reflectedValue);
+            } else if (plannedValue instanceof List<?> plannedList && reflectedValue instanceof List<?> reflectedList) {
+                softy.assertEquals(plannedList.size(), reflectedList.size(), fieldPath);
+                for (var i = 0; i < Math.min(plannedList.size(), reflectedList.size()); i++) {
+                    assertSameShape(softy, fieldPath + "[" + i + "]", plannedList.get(i), reflectedList.get(i));
+                }
+            } else {
+                softy.assertEquals(plannedValue, reflectedValue, fieldPath);
+            }
+        }
+    }
+
+    private static Object read(Field field, Object instance) {
+        try {
+            field.setAccessible(true);
+            return field.get(instance);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Эталон: генерация через рефлексию на каждом вызове, как до появления GenerationPlan
+    private static TestData reflectionGenerate() {
+        var instance = new TestData();
+        var generatedModels = new ArrayList<BaseModel>();
+        for (var field : TestData.class.getDeclaredFields()) {
+            if (BaseModel.class.isAssignableFrom(field.getType())) {
+                var generatedModel = reflectionGenerate(generatedModels, field.getType().asSubclass(BaseModel.class));
+                write(field, instance, generatedModel);
+                generatedModels.add(generatedModel);
+            }
+        }
+        return instance;
+    }
+
+    private static <T extends BaseModel> T reflectionGenerate(List<BaseModel> generatedModels, Class<T> generatorClass,
+                                                              Object... parameters) {
+        T instance;
+        try {
+            instance = generatorClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        for (var field : generatorClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Optional.class)) {
+                continue;
+            }
+            var generatedClass = generatedModels.stream()
+                    .filter(model -> model.getClass().equals(field.getType())).findFirst();
+            if (field.isAnnotationPresent(Parameterizable.class) && parameters.length > 0) {
+                write(field, instance, parameters[0]);
+                parameters = Arrays.copyOfRange(parameters, 1, parameters.length);
+            } else if (field.isAnnotationPresent(Random.class)) {
+                if (String.class.equals(field.getType())) {
+                    write(field, instance, RandomData.getString());
+                }
+            } else if (BaseModel.class.isAssignableFrom(field.getType())) {
+                var finalParameters = parameters;
+                write(field, instance, generatedClass.orElseGet(() -> reflectionGenerate(
+                        generatedModels, field.getType().asSubclass(BaseModel.class), finalParameters)));
+            } else if (List.class.isAssignableFrom(field.getType())
+                    && field.getGenericType() instanceof ParameterizedType pt
+                    && pt.getActualTypeArguments()[0] instanceof Class<?> typeClass
+                    && BaseModel.class.isAssignableFrom(typeClass)) {
+                var finalParameters = parameters;
+                write(field, instance, generatedClass.map(List::of).orElseGet(() -> List.of(reflectionGenerate(
+                        generatedModels, typeClass.asSubclass(BaseModel.class), finalParameters))));
+            }
+        }
+        return instance;
+    }
+
+    private static void write(Field field, Object instance, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(instance, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.teamcity.api.logging;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Headers;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+/**
+ * Буфер запросов режима requestLogging=onFailure.
+ */
+@Test(groups = {"Regression"})
+public class RequestLogTest {
+
+    @Test(description = "Exchanges sent from a pool thread should be dumped with the test thread buffer",
+            groups = {"Positive"})
+    public void boundPoolThreadExchangesTest() {
+        RequestLog.clear();
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture.runAsync(RequestLog.bind(() -> RequestLog.add(exchange("/pool"))), executor).join();
+            CompletableFuture.runAsync(() -> RequestLog.add(exchange("/unbound")), executor).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        var log = captureDump();
+        Assert.assertTrue(log.contains("/pool"), log);
+        Assert.assertTrue(log.contains("response body"), log);
+        Assert.assertFalse(log.contains("/unbound"), log);
+        // Буфер очищается после вывода
+        Assert.assertEquals(captureDump(), "");
+    }
+
+    private static RequestLog.Exchange exchange(String uri) {
+        var response = new ResponseBuilder().setStatusCode(200).setStatusLine("HTTP/1.1 200 OK")
+                .setBody("response body").build();
+        return new RequestLog.Exchange("GET", uri, new Headers(), null, response);
+    }
+
+    private static String captureDump() {
+        var out = new ByteArrayOutputStream();
+        var original = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            RequestLog.dump();
+        } finally {
+            System.setOut(original);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.teamcity.api.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Размер тела запроса считается без копирования строки и совпадает с длиной в UTF-8.
+ */
+@Test(groups = {"Regression"})
+public class RestMetricsFilterTest {
+
+    @DataProvider
+    public Object[][] bodies() {
+        return new Object[][]{
+                {""},
+                {"{\"id\":\"project_1\"}"},
+                {"{\"name\":\"Проект\"}"},
+                {"{\"name\":\"€ 😀\"}"},
+                {"unpaired \uD83D surrogate"},
+        };
+    }
+
+    @Test(description = "Body size should match its UTF-8 encoding", dataProvider = "bodies", groups = {"Positive"})
+    public void utf8LengthTest(String body) {
+        Assert.assertEquals(RestMetricsFilter.utf8Length(body), body.getBytes(StandardCharsets.UTF_8).length);
+    }
+}
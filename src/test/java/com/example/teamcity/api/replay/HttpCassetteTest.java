@@ -0,0 +1,65 @@
+package com.example.teamcity.api.replay;
+
+import io.restassured.http.Header;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Чтение файла записанных HTTP-обменов, в том числе после прерванной записи.
+ */
+@Test(groups = {"Regression"})
+public class HttpCassetteTest {
+    private static final long SEED = 42;
+
+    @Test(description = "Closed cassette should replay responses in recording order", groups = {"Positive"})
+    public void replayClosedCassetteTest() throws IOException {
+        var path = Files.createTempFile("http-cassette", ".bin");
+        try (var cassette = HttpCassette.record(path, SEED)) {
+            cassette.append("GET /a", response("first"));
+            cassette.append("GET /a", response("second"));
+            cassette.append("GET /b", response("other"));
+        }
+
+        try (var cassette = HttpCassette.open(path)) {
+            Assert.assertEquals(cassette.getSeed(), SEED);
+            Assert.assertEquals(body(cassette.next("GET /a")), "first");
+            Assert.assertEquals(body(cassette.next("GET /b")), "other");
+            Assert.assertEquals(body(cassette.next("GET /a")), "second");
+            Assert.assertNull(cassette.next("GET /a"));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(description = "Cassette of an interrupted recording should be readable", groups = {"Positive"})
+    public void replayInterruptedCassetteTest() throws IOException {
+        var path = Files.createTempFile("http-cassette", ".bin");
+        var recording = HttpCassette.record(path, SEED);
+        recording.append("GET /a", response("before checkpoint"));
+        recording.checkpoint();
+        // Индекс после checkpoint затирается следующим ответом, а close не вызывается, как при убитом процессе
+        recording.append("GET /b", response("after checkpoint"));
+
+        try (var cassette = HttpCassette.open(path)) {
+            Assert.assertEquals(body(cassette.next("GET /a")), "before checkpoint");
+            Assert.assertEquals(body(cassette.next("GET /b")), "after checkpoint");
+        } finally {
+            recording.close();
+            Files.delete(path);
+        }
+    }
+
+    private static HttpCassette.RecordedResponse response(String body) {
+        return new HttpCassette.RecordedResponse(200, "HTTP/1.1 200 OK", List.of(new Header("Content-Type", "text/plain")),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String body(HttpCassette.RecordedResponse response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+}
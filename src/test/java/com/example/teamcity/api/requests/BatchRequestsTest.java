@@ -0,0 +1,59 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.BaseApiTest;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.spec.Specifications;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.teamcity.api.enums.Endpoint.PROJECTS;
+import static com.example.teamcity.api.generators.TestDataGenerator.generate;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+import static org.apache.http.HttpStatus.SC_OK;
+
+/**
+ * Пакетные запросы createAll/deleteAll.
+ */
+@Test(groups = {"Regression"})
+public class BatchRequestsTest extends BaseApiTest {
+    private static final int PROJECTS_COUNT = 4;
+
+    @Test(description = "Projects should be created and deleted in batch, in order of models", groups = {"Positive"})
+    public void createAndDeleteAllProjectsTest() {
+        var projects = Stream.generate(() -> generate(Project.class)).limit(PROJECTS_COUNT).toList();
+        var ids = projects.stream().map(Project::getId).toList();
+
+        var created = superUserCheckRequests.<Project>createAll(PROJECTS, projects, 2);
+
+        softy().assertTrue(created.stream().allMatch(BatchResult::isSuccess), "Created: " + created);
+        softy().assertEquals(created.stream().map(result -> result.value().getId()).toList(), ids);
+
+        var deleted = superUserCheckRequests.deleteAll(PROJECTS, ids.stream().map(id -> "id:" + id).toList(), 2);
+
+        softy().assertTrue(deleted.stream().allMatch(BatchResult::isSuccess), "Deleted: " + deleted);
+        var requests = new UncheckedRequests(Specifications.superUserSpec());
+        ids.forEach(id -> softy().assertEquals(requests.getRequest(PROJECTS).read("id:" + id).getStatusCode(),
+                SC_NOT_FOUND, "Project " + id));
+    }
+
+    @Test(description = "Failed item should not stop creation of the others", groups = {"Negative"})
+    public void createAllWithDuplicateProjectTest() {
+        var project = generate(Project.class);
+        var other = generate(Project.class);
+        // Проект повторяет id первого, поэтому сервер его не создаст
+        var duplicate = generate(Project.class);
+        duplicate.setId(project.getId());
+
+        // По одному запросу за раз, чтобы дубликат точно создавался после оригинала
+        var results = superUserCheckRequests.<Project>createAll(PROJECTS, List.of(project, duplicate, other), 1);
+
+        softy().assertTrue(results.get(0).isSuccess(), "Original: " + results.get(0));
+        softy().assertFalse(results.get(1).isSuccess(), "Duplicate: " + results.get(1));
+        softy().assertTrue(results.get(1).error() instanceof AssertionError, "Duplicate: " + results.get(1));
+        softy().assertTrue(results.get(2).isSuccess(), "Project after the duplicate: " + results.get(2));
+        softy().assertEquals(new UncheckedRequests(Specifications.superUserSpec()).getRequest(PROJECTS)
+                .read("id:" + other.getId()).getStatusCode(), SC_OK);
+    }
+}
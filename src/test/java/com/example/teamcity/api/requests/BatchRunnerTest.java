@@ -0,0 +1,88 @@
+package com.example.teamcity.api.requests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Пакетное выполнение (BatchRunner): порядок результатов, ошибки отдельных элементов и ограничение параллельности.
+ */
+@Test(groups = {"Regression"})
+public class BatchRunnerTest {
+    private static final int ITEMS = 24;
+    private static final int CONCURRENCY = 3;
+
+    @Test(description = "Results should follow the order of items", groups = {"Positive"})
+    public void resultsKeepItemOrderTest() {
+        var items = IntStream.range(0, ITEMS).boxed().toList();
+
+        var results = BatchRunner.run(items, CONCURRENCY, item -> {
+            // Элементы завершаются не по порядку
+            sleep(ThreadLocalRandom.current().nextInt(10));
+            return "item-" + item;
+        });
+
+        var softy = new SoftAssert();
+        softy.assertTrue(results.stream().allMatch(BatchResult::isSuccess), "Results: " + results);
+        softy.assertEquals(results.stream().map(BatchResult::value).toList(),
+                items.stream().map(item -> "item-" + item).toList());
+        softy.assertAll();
+    }
+
+    @Test(description = "Failure of one item should not stop the others", groups = {"Negative"})
+    public void failedItemDoesNotStopOthersTest() {
+        var failure = new IllegalStateException("item 2 failed");
+
+        var results = BatchRunner.run(List.of(0, 1, 2, 3, 4), CONCURRENCY, item -> {
+            if (item == 2) {
+                throw failure;
+            }
+            return item * 10;
+        });
+
+        var softy = new SoftAssert();
+        softy.assertFalse(results.get(2).isSuccess());
+        softy.assertSame(results.get(2).error(), failure);
+        softy.assertEquals(results.stream().filter(BatchResult::isSuccess).map(BatchResult::value).toList(),
+                List.of(0, 10, 30, 40));
+        softy.assertAll();
+    }
+
+    @Test(description = "No more than concurrency items should run at once", groups = {"Positive"})
+    public void concurrencyIsCappedTest() {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        BatchRunner.run(IntStream.range(0, ITEMS).boxed().toList(), CONCURRENCY, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return item;
+        });
+
+        var softy = new SoftAssert();
+        softy.assertTrue(maxRunning.get() <= CONCURRENCY, "Max running: " + maxRunning.get());
+        softy.assertTrue(maxRunning.get() > 1, "Items should run in parallel, max running: " + maxRunning.get());
+        softy.assertAll();
+    }
+
+    @Test(description = "Concurrency should be positive", groups = {"Negative"})
+    public void nonPositiveConcurrencyTest() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> BatchRunner.run(List.of(1), 0, item -> item));
+        Assert.assertEquals(BatchRunner.run(List.<Integer>of(), 1, item -> item), List.of());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
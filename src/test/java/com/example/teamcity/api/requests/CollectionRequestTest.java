@@ -0,0 +1,74 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.BaseApiTest;
+import com.example.teamcity.api.generators.TestDataStorage;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.spec.Specifications;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.example.teamcity.api.enums.Endpoint.BUILD_TYPES;
+import static com.example.teamcity.api.enums.Endpoint.PROJECTS;
+import static com.example.teamcity.api.generators.TestDataGenerator.generate;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+import static org.apache.http.HttpStatus.SC_OK;
+
+/**
+ * Постраничное чтение коллекций (CollectionRequest) и поиск оставшихся после очистки сущностей.
+ * Читаются только build types проекта теста, запросы страниц считаются фильтром спецификации самого теста,
+ * а поиск идет по собственному префиксу теста, поэтому другие тесты, в том числе параллельные, на результат не влияют.
+ */
+@Test(groups = {"Regression"})
+public class CollectionRequestTest extends BaseApiTest {
+    private static final int BUILD_TYPES_COUNT = 5;
+    private static final int PAGE_SIZE = 2;
+
+    @Test(description = "Collection should be read page by page following nextHref", groups = {"Positive"})
+    public void streamBuildTypesPageByPageTest() {
+        var project = superUserCheckRequests.<Project>getRequest(PROJECTS).create(testData().getProject());
+        var createdIds = Stream.generate(() -> generate(List.of(project), BuildType.class))
+                .limit(BUILD_TYPES_COUNT)
+                .map(buildType -> superUserCheckRequests.<BuildType>getRequest(BUILD_TYPES).create(buildType).getId())
+                .toList();
+        var pageRequests = new AtomicInteger();
+        // Спецификация - копия для этого теста, поэтому фильтр не попадет в чужие запросы
+        var spec = Specifications.superUserSpec().filter((requestSpec, responseSpec, ctx) -> {
+            pageRequests.incrementAndGet();
+            return ctx.next(requestSpec, responseSpec);
+        });
+
+        List<BuildType> buildTypes;
+        try (var stream = new CollectionRequest<BuildType>(spec, BUILD_TYPES, PAGE_SIZE)
+                .stream("affectedProject:(id:" + project.getId() + ")", "id,name")) {
+            buildTypes = stream.toList();
+        }
+
+        softy().assertEquals(buildTypes.stream().map(BuildType::getId).toList(), createdIds,
+                "Streamed build types should be the created ones in order");
+        softy().assertTrue(buildTypes.stream().allMatch(buildType -> buildType.getName() != null), "Names should be read");
+        softy().assertEquals(pageRequests.get(), (BUILD_TYPES_COUNT + PAGE_SIZE - 1) / PAGE_SIZE,
+                "Each page should be requested once");
+    }
+
+    @Test(description = "Entities left after cleanup should be found by prefix and deleted", groups = {"Positive"})
+    public void sweepLeakedEntitiesTest() {
+        // Префикс уникален для теста: сущности прогона и других тестов под него не попадают
+        var prefix = generate(Project.class).getId() + "_leak_";
+        var leakedProject = generate(Project.class);
+        leakedProject.setId(prefix + "project");
+        // Проект создается мимо реестра теста, как если бы очистка его пропустила
+        new UncheckedRequests(Specifications.superUserSpec()).getRequest(PROJECTS).create(leakedProject)
+                .then().assertThat().statusCode(SC_OK);
+
+        var leaked = TestDataStorage.sweepLeakedEntities(prefix);
+
+        softy().assertEquals(leaked.getOrDefault(PROJECTS, List.of()), List.of(leakedProject.getId()));
+        softy().assertEquals(leaked.getOrDefault(BUILD_TYPES, List.of()), List.of());
+        softy().assertEquals(new UncheckedRequests(Specifications.superUserSpec()).getRequest(PROJECTS)
+                .read("id:" + leakedProject.getId()).getStatusCode(), SC_NOT_FOUND);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.models.BaseModel;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Property;
+import com.example.teamcity.api.models.ServerAuthSettings;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Имена полей fields= из ссылок на геттеры моделей.
+ */
+@Test(groups = {"Regression"})
+public class FieldsTest {
+
+    @Test(description = "Getter references should be resolved to field names in order", groups = {"Positive"})
+    public void getterNamesTest() {
+        Assert.assertEquals(Fields.of(BuildType::getName, BuildType::getId).toString(), "name,id");
+        Assert.assertEquals(Fields.of(Property::getValue).toString(), "value");
+        Assert.assertEquals(Fields.of(ServerAuthSettings::getPerProjectPermissions).toString(), "perProjectPermissions");
+        // Повторный вызов с той же ссылкой берет имя из кеша
+        Assert.assertEquals(Fields.of(BuildType::getName).toString(), "name");
+    }
+
+    @Test(description = "is-getters and acronyms should follow JavaBeans naming", groups = {"Positive"})
+    public void booleanAndAcronymGetterNamesTest() {
+        Assert.assertEquals(Fields.of(Sample::isEnabled, Sample::getURL, Sample::getX).toString(), "enabled,URL,x");
+    }
+
+    @Test(description = "Raw fields should be passed as is", groups = {"Positive"})
+    public void rawFieldsTest() {
+        Assert.assertEquals(Fields.raw("id,steps(step(id,name))").toString(), "id,steps(step(id,name))");
+    }
+
+    @Test(description = "Only getter method references should be accepted", groups = {"Negative"})
+    public void notGetterReferenceTest() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> Fields.of(BuildType::toString));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Fields.<BuildType>of(buildType -> buildType.getName()));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Fields.<BuildType>of());
+    }
+
+    // Модель с геттерами, которых нет у моделей TeamCity: isX, аббревиатура и однобуквенное имя
+    private static class Sample extends BaseModel {
+        public boolean isEnabled() {
+            return true;
+        }
+
+        public String getURL() {
+            return null;
+        }
+
+        public String getX() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.teamcity.api.requests;
+
+import com.example.teamcity.api.enums.Endpoint;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.requests.unchecked.CachedUncheckedBase;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.http.HttpStatus.SC_NOT_MODIFIED;
+import static org.apache.http.HttpStatus.SC_OK;
+
+/**
+ * Инвалидация и перепроверка (304) клиентского кеша чтений.
+ */
+@Test(groups = {"Regression"})
+public class ReadCacheTest {
+    private static final String ETAG = "\"v1\"";
+
+    @Test(description = "Project changes should invalidate cached build types", groups = {"Positive"})
+    public void projectInvalidatesBuildTypesTest() {
+        var cache = new ReadCache();
+        cache.put(Endpoint.BUILD_TYPES, "id:bt", response(), cache.generation(Endpoint.BUILD_TYPES));
+        cache.put(Endpoint.USERS, "id:1", response(), cache.generation(Endpoint.USERS));
+
+        cache.invalidate(Endpoint.PROJECTS);
+
+        Assert.assertNull(cache.get(Endpoint.BUILD_TYPES, "id:bt"));
+        Assert.assertNotNull(cache.get(Endpoint.USERS, "id:1"));
+    }
+
+    @Test(description = "Response read before invalidation should not be cached", groups = {"Positive"})
+    public void staleReadIsDroppedTest() {
+        var cache = new ReadCache();
+        // Чтение началось до записи, а ответ пришел после инвалидации
+        var generation = cache.generation(Endpoint.PROJECTS);
+        cache.invalidate(Endpoint.PROJECTS);
+        cache.put(Endpoint.PROJECTS, "id:p", response(), generation);
+        Assert.assertNull(cache.get(Endpoint.PROJECTS, "id:p"));
+
+        cache.put(Endpoint.PROJECTS, "id:p", response(), cache.generation(Endpoint.PROJECTS));
+        Assert.assertNotNull(cache.get(Endpoint.PROJECTS, "id:p"));
+    }
+
+    @Test(description = "Entry with ETag should be revalidated and served from cache on 304", groups = {"Positive"})
+    public void notModifiedIsServedFromCacheTest() {
+        var requests = new AtomicInteger();
+        var conditionalRequests = new AtomicInteger();
+        // Сервер-заглушка: первый GET отдает ETag, условный GET с тем же ETag получает 304 без тела
+        var spec = new RequestSpecBuilder().setBaseUri("http://localhost").addFilter((requestSpec, responseSpec, ctx) -> {
+            requests.incrementAndGet();
+            if (ETAG.equals(requestSpec.getHeaders().getValue("If-None-Match"))) {
+                conditionalRequests.incrementAndGet();
+                return new ResponseBuilder().setStatusCode(SC_NOT_MODIFIED).setBody("").build();
+            }
+            return new ResponseBuilder().setStatusCode(SC_OK).setHeader("ETag", ETAG)
+                    .setBody("{\"id\":\"p\"}").setContentType("application/json").build();
+        }).build();
+        var cache = new ReadCache();
+        var request = new CachedUncheckedBase(spec, Endpoint.PROJECTS, cache);
+
+        request.read("id:p");
+        var revalidated = request.read("id:p");
+
+        Assert.assertEquals(requests.get(), 2);
+        Assert.assertEquals(conditionalRequests.get(), 1);
+        Assert.assertEquals(revalidated.getStatusCode(), SC_OK);
+        Assert.assertEquals(revalidated.jsonPath().getString("id"), "p");
+        Assert.assertEquals(cache.getStats(Endpoint.PROJECTS).getMisses(), 1);
+        Assert.assertEquals(cache.getStats(Endpoint.PROJECTS).getRevalidated(), 1);
+    }
+
+    @Test(description = "Build type creation should invalidate cached projects", groups = {"Positive"})
+    public void createInvalidatesTest() {
+        var spec = new RequestSpecBuilder().setBaseUri("http://localhost").addFilter((requestSpec, responseSpec, ctx) ->
+                new ResponseBuilder().setStatusCode(SC_OK).setBody("{}").setContentType("application/json").build())
+                .build();
+        var cache = new ReadCache();
+        cache.put(Endpoint.PROJECTS, "id:p", response(), cache.generation(Endpoint.PROJECTS));
+
+        new CachedUncheckedBase(spec, Endpoint.BUILD_TYPES, cache).create(new BuildType());
+
+        Assert.assertNull(cache.get(Endpoint.PROJECTS, "id:p"));
+    }
+
+    private static Response response() {
+        return new ResponseBuilder().setStatusCode(200).setBody("{}").setContentType("application/json").build();
+    }
+}
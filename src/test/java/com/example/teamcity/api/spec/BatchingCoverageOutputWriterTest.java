@@ -0,0 +1,45 @@
+package com.example.teamcity.api.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Объединение повторных вызовов операции при раскладке спула swagger-coverage.
+ */
+@Test(groups = {"Regression"})
+public class BatchingCoverageOutputWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test(description = "Repeated calls of an operation should merge into one with all parameters and statuses",
+            groups = {"Positive"})
+    public void repeatedCallsAreMergedTest() throws Exception {
+        var operations = new LinkedHashMap<String, ObjectNode>();
+        add(operations, "/app/rest/projects/{locator}", "get", "id:a", "200");
+        add(operations, "/app/rest/projects/{locator}", "get", "id:b", "404");
+        add(operations, "/app/rest/projects/{locator}", "get", "id:a", "200");
+        add(operations, "/app/rest/projects/{locator}", "delete", "id:a", "204");
+
+        Assert.assertEquals(operations.keySet(), List.of(
+                "get /app/rest/projects/{locator}", "delete /app/rest/projects/{locator}"));
+        var get = operations.get("get /app/rest/projects/{locator}");
+        Assert.assertEquals(get.get("parameters").size(), 2, "Distinct parameters should be kept once");
+        Assert.assertTrue(get.get("responses").has("200"));
+        Assert.assertTrue(get.get("responses").has("404"));
+    }
+
+    private void add(Map<String, ObjectNode> operations, String path, String method, String locator, String status)
+            throws Exception {
+        var record = mapper.readTree("""
+                {"swagger": "2.0", "paths": {"%s": {"%s": {
+                  "parameters": [{"name": "locator", "in": "path", "x-example": "%s"}],
+                  "responses": {"%s": {"description": ""}}
+                }}}}""".formatted(path, method, locator, status));
+        BatchingCoverageOutputWriter.addOperations(operations, (ObjectNode) record);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.teamcity.api.spec;
+
+import com.example.teamcity.api.config.Config;
+import com.example.teamcity.api.models.BuildType;
+import com.example.teamcity.api.models.Project;
+import com.example.teamcity.api.models.Step;
+import com.example.teamcity.api.models.Steps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.Allure;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.stream.IntStream;
+
+import static com.example.teamcity.api.generators.TestDataGenerator.generate;
+
+/**
+ * Общий ObjectMapper моделей (ModelObjectMapper) в сравнении с ObjectMapper по умолчанию:
+ * одинаковый JSON и замер скорости чтения и записи.
+ */
+@Test(groups = {"Regression"})
+public class ModelObjectMapperTest {
+    private static final int STEPS = 500;
+
+    @Test(description = "Shared mapper should produce the same JSON as the default mapper", groups = {"Positive"})
+    public void sharedMapperKeepsJsonFormatTest() throws JsonProcessingException {
+        var softy = new SoftAssert();
+        var defaultMapper = new ObjectMapper();
+        var buildType = buildTypeWithSteps();
+        var json = defaultMapper.writeValueAsString(buildType);
+
+        softy.assertEquals(ModelObjectMapper.get().writeValueAsString(buildType), json);
+        softy.assertEquals(ModelObjectMapper.get().readValue(json, BuildType.class), buildType);
+        // Неизвестные поля из ответов TeamCity игнорируются
+        softy.assertEquals(ModelObjectMapper.get().readValue("{\"id\":\"p\",\"unknown\":1}", Project.class).getId(), "p");
+        softy.assertAll();
+    }
+
+    /**
+     * Замер: BuildType с 500 шагами читается и пишется общим и новым ObjectMapper по умолчанию.
+     * Запускается только явно (-Dbenchmark=true), итерации задаются benchmarkIterations. Результат печатается
+     * и пишется в target/object-mapper-benchmark.json и Allure.
+     */
+    @Test(description = "Shared mapper throughput compared to the default mapper", groups = {"Benchmark"})
+    public void sharedMapperBenchmarkTest() throws IOException {
+        if (!Config.getBooleanProperty("benchmark", false)) {
+            throw new SkipException("Benchmark is disabled, set -Dbenchmark=true to run it");
+        }
+        var iterations = Config.getIntProperty("benchmarkIterations", 2_000);
+        var defaultMapper = new ObjectMapper();
+        var json = defaultMapper.writeValueAsString(buildTypeWithSteps());
+
+        var report = new LinkedHashMap<String, Object>();
+        // Прогрев обоих вариантов, затем поочередные замеры, чтобы JIT и GC влияли на них одинаково
+        for (var round = 0; round < 3; round++) {
+            measure(defaultMapper, json, iterations);
+            measure(ModelObjectMapper.get(), json, iterations);
+        }
+        var defaultUs = Math.min(measure(defaultMapper, json, iterations), measure(defaultMapper, json, iterations));
+        var sharedUs = Math.min(measure(ModelObjectMapper.get(), json, iterations),
+                measure(ModelObjectMapper.get(), json, iterations));
+        report.put("steps", STEPS);
+        report.put("iterations", iterations);
+        report.put("defaultMapperUsPerOp", defaultUs);
+        report.put("sharedMapperUsPerOp", sharedUs);
+        report.put("speedup", defaultUs / sharedUs);
+
+        var reportJson = ModelObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        System.out.println("ObjectMapper benchmark: " + reportJson);
+        var reportPath = Paths.get("target/object-mapper-benchmark.json");
+        Files.createDirectories(reportPath.getParent());
+        Files.writeString(reportPath, reportJson, StandardCharsets.UTF_8);
+        Allure.addAttachment("ObjectMapper benchmark", "application/json", reportJson, ".json");
+    }
+
+    // Среднее время чтения и записи одной модели, мкс
+    private static double measure(ObjectMapper mapper, String json, int iterations) throws IOException {
+        var start = System.nanoTime();
+        var sink = 0;
+        for (var i = 0; i < iterations; i++) {
+            var buildType = mapper.readValue(json, BuildType.class);
+            sink += mapper.writeValueAsString(buildType).length();
+        }
+        if (sink == 0) {
+            throw new IllegalStateException("Empty serialization result");
+        }
+        return (System.nanoTime() - start) / 1_000.0 / iterations;
+    }
+
+    private static BuildType buildTypeWithSteps() {
+        var buildType = generate(BuildType.class);
+        buildType.setSteps(Steps.builder()
+                .count(STEPS)
+                .step(IntStream.range(0, STEPS)
+                        .mapToObj(i -> Step.builder().id("step_" + i).name("Step " + i).build())
+                        .toList())
+                .build());
+        return buildType;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.teamcity.api.spec;
+
+import io.restassured.specification.FilterableRequestSpecification;
+import org.testng.annotations.Test;
+import org.testng.asserts.SoftAssert;
+
+/**
+ * Закешированные спецификации: каждый вызывающий получает свою копию.
+ */
+@Test(groups = {"Regression"})
+public class SpecificationsTest {
+
+    @Test(description = "Changes of a returned spec should not leak to other callers", groups = {"Positive"})
+    public void cachedSpecIsCopiedPerCallerTest() {
+        var softy = new SoftAssert();
+        var changed = (FilterableRequestSpecification) Specifications.unauthSpec();
+        changed.header("X-Leaked", "value");
+
+        var other = (FilterableRequestSpecification) Specifications.unauthSpec();
+
+        softy.assertNotSame(other, changed);
+        softy.assertFalse(other.getHeaders().hasHeaderWithName("X-Leaked"), "Headers: " + other.getHeaders());
+        softy.assertEquals(other.getDefinedFilters().size(), changed.getDefinedFilters().size(),
+                "Copy should keep the shared filters");
+        softy.assertEquals(other.getContentType(), changed.getContentType());
+        softy.assertAll();
+    }
+}
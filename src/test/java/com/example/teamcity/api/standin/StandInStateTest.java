@@ -0,0 +1,131 @@
+package com.example.teamcity.api.standin;
+
+import com.example.teamcity.api.enums.Endpoint;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static com.example.teamcity.api.standin.StandInState.Principal.SUPER_USER;
+import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
+import static org.apache.http.HttpStatus.SC_FORBIDDEN;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+
+/**
+ * Поведение stand-in сервера, на которое опираются тесты: тексты ошибок уникальности, права PROJECT_ADMIN,
+ * каскадное удаление и постраничное чтение.
+ */
+@Test(groups = {"Regression"})
+public class StandInStateTest {
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+    private static final String PASSWORD = "password";
+
+    @Test(description = "Duplicate project id and name should be rejected with TeamCity messages", groups = {"Negative"})
+    public void projectUniquenessTest() {
+        var state = new StandInState("token");
+        state.create(Endpoint.PROJECTS, project("parent", "Parent", null), SUPER_USER);
+
+        assertFails(() -> state.create(Endpoint.PROJECTS, project("parent", "Other", null), SUPER_USER),
+                SC_BAD_REQUEST, "Project ID \"parent\" is already used by another project");
+        assertFails(() -> state.create(Endpoint.PROJECTS, project("other", "Parent", null), SUPER_USER),
+                SC_BAD_REQUEST, "Project with this name already exists.");
+        // Имя уникально только среди проектов одного родителя
+        state.create(Endpoint.PROJECTS, project("child", "Parent", "parent"), SUPER_USER);
+    }
+
+    @Test(description = "Duplicate build type id and name should be rejected with TeamCity messages", groups = {"Negative"})
+    public void buildTypeUniquenessTest() {
+        var state = new StandInState("token");
+        state.create(Endpoint.PROJECTS, project("first", "First", null), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("second", "Second", null), SUPER_USER);
+        state.create(Endpoint.BUILD_TYPES, buildType("build", "Build", "first"), SUPER_USER);
+
+        assertFails(() -> state.create(Endpoint.BUILD_TYPES, buildType("build", "Other", "second"), SUPER_USER),
+                SC_BAD_REQUEST, "The build configuration / template ID \"build\" is already used by another configuration or template");
+        assertFails(() -> state.create(Endpoint.BUILD_TYPES, buildType("other", "Build", "first"), SUPER_USER),
+                SC_BAD_REQUEST, "Build configuration with name \"Build\" already exists in project: \"First\"");
+        state.create(Endpoint.BUILD_TYPES, buildType("other", "Build", "second"), SUPER_USER);
+    }
+
+    @Test(description = "Project admin scope should cover subprojects only with perProjectPermissions", groups = {"Positive"})
+    public void projectAdminScopeTest() {
+        var state = new StandInState("token");
+        state.create(Endpoint.PROJECTS, project("parent", "Parent", null), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("child", "Child", "parent"), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("foreign", "Foreign", null), SUPER_USER);
+        state.create(Endpoint.USERS, projectAdmin("admin", "parent"), SUPER_USER);
+        state.updateAuthSettings((ObjectNode) JSON.objectNode().put("perProjectPermissions", true), SUPER_USER);
+
+        var admin = state.authenticate("admin", PASSWORD);
+        state.create(Endpoint.BUILD_TYPES, buildType("childBuild", "Build", "child"), admin);
+        assertFails(() -> state.create(Endpoint.BUILD_TYPES, buildType("foreignBuild", "Build", "foreign"), admin),
+                SC_FORBIDDEN, "You do not have enough permissions to edit project with id: foreign");
+
+        // Без perProjectPermissions роль PROJECT_ADMIN действует на все проекты
+        state.updateAuthSettings((ObjectNode) JSON.objectNode().put("perProjectPermissions", false), SUPER_USER);
+        state.create(Endpoint.BUILD_TYPES, buildType("foreignBuild", "Build", "foreign"),
+                state.authenticate("admin", PASSWORD));
+    }
+
+    @Test(description = "Deleting a project should delete its subprojects and build types", groups = {"Positive"})
+    public void cascadeDeleteTest() {
+        var state = new StandInState("token");
+        state.create(Endpoint.PROJECTS, project("parent", "Parent", null), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("child", "Child", "parent"), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("kept", "Kept", null), SUPER_USER);
+        state.create(Endpoint.BUILD_TYPES, buildType("childBuild", "Build", "child"), SUPER_USER);
+        state.create(Endpoint.BUILD_TYPES, buildType("keptBuild", "Build", "kept"), SUPER_USER);
+
+        state.delete(Endpoint.PROJECTS, "id:parent", SUPER_USER);
+
+        assertFails(() -> state.read(Endpoint.PROJECTS, "id:child"), SC_NOT_FOUND, null);
+        assertFails(() -> state.read(Endpoint.BUILD_TYPES, "id:childBuild"), SC_NOT_FOUND, null);
+        Assert.assertNotNull(state.read(Endpoint.BUILD_TYPES, "id:keptBuild"));
+    }
+
+    @Test(description = "Page with default count should not overflow and should have no next page", groups = {"Positive"})
+    public void pageWithDefaultCountTest() {
+        var state = new StandInState("token");
+        state.create(Endpoint.PROJECTS, project("first", "First", null), SUPER_USER);
+        state.create(Endpoint.PROJECTS, project("second", "Second", null), SUPER_USER);
+
+        var page = state.page(Endpoint.PROJECTS, null, 1, Integer.MAX_VALUE);
+
+        // _Root пропущен через start:1
+        Assert.assertEquals(page.get("count").asInt(), 2);
+        Assert.assertFalse(page.has("nextHref"));
+        Assert.assertEquals(state.page(Endpoint.PROJECTS, null, 5, Integer.MAX_VALUE).get("count").asInt(), 0);
+        Assert.assertEquals(state.page(Endpoint.PROJECTS, null, 1, 1).get("nextHref").asText(),
+                Endpoint.PROJECTS.getUrl() + "?locator=count:1,start:2");
+    }
+
+    private static void assertFails(Runnable action, int statusCode, String message) {
+        var e = Assert.expectThrows(StandInException.class, action::run);
+        Assert.assertEquals(e.getStatusCode(), statusCode, e.getMessage());
+        if (message != null) {
+            Assert.assertEquals(e.getMessage(), message);
+        }
+    }
+
+    private static ObjectNode project(String id, String name, String parentId) {
+        var project = JSON.objectNode().put("id", id).put("name", name);
+        if (parentId != null) {
+            project.putObject("parentProject").put("id", parentId);
+        }
+        return project;
+    }
+
+    private static ObjectNode buildType(String id, String name, String projectId) {
+        var buildType = JSON.objectNode().put("id", id).put("name", name);
+        buildType.putObject("project").put("id", projectId);
+        return buildType;
+    }
+
+    private static ObjectNode projectAdmin(String username, String projectId) {
+        var user = JSON.objectNode().put("username", username).put("password", PASSWORD);
+        user.putObject("roles").putArray("role").addObject()
+                .put("roleId", "PROJECT_ADMIN")
+                .put("scope", "p:" + projectId);
+        return user;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.teamcity.api.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+/**
+ * Границы экспоненциальной задержки и разброс jitter.
+ */
+@Test(groups = {"Regression"})
+public class BackoffTest {
+    private static final int SAMPLES = 200;
+    private final Backoff backoff = new Backoff(Duration.ofMillis(100), Duration.ofMillis(1_000), 2);
+
+    @Test(description = "Delay should be between half and full exponential ceiling capped by max", groups = {"Positive"})
+    public void delayBoundsTest() {
+        // Потолок: 100, 200, 400, 800, дальше max = 1000
+        long[] ceilings = {100, 200, 400, 800, 1_000, 1_000};
+        for (var attempt = 0; attempt < ceilings.length; attempt++) {
+            var ceiling = Duration.ofMillis(ceilings[attempt]);
+            for (var i = 0; i < SAMPLES; i++) {
+                var delay = backoff.delay(attempt);
+                Assert.assertTrue(delay.compareTo(ceiling.dividedBy(2)) >= 0 && delay.compareTo(ceiling) <= 0,
+                        "Attempt %d delay %s out of [%s, %s]".formatted(attempt, delay, ceiling.dividedBy(2), ceiling));
+            }
+        }
+        // Большой номер попытки не переполняет задержку
+        Assert.assertTrue(backoff.delay(10_000).compareTo(Duration.ofMillis(1_000)) <= 0);
+    }
+
+    @Test(description = "Delays should be spread by jitter", groups = {"Positive"})
+    public void jitterTest() {
+        var delays = new HashSet<Duration>();
+        for (var i = 0; i < SAMPLES; i++) {
+            delays.add(backoff.delay(3));
+        }
+        Assert.assertTrue(delays.size() > 1, "Jitter should spread delays: " + delays);
+    }
+
+    @Test(description = "Invalid settings should be rejected", groups = {"Negative"})
+    public void invalidBackoffTest() {
+        Assert.assertThrows(IllegalStateException.class, () -> new Backoff(Duration.ZERO, Duration.ofMillis(1), 2));
+        Assert.assertThrows(IllegalStateException.class, () -> new Backoff(Duration.ofMillis(10), Duration.ofMillis(1), 2));
+        Assert.assertThrows(IllegalStateException.class, () -> new Backoff(Duration.ofMillis(1), Duration.ofMillis(10), 0.5));
+    }
+}
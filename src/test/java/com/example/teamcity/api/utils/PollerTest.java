@@ -0,0 +1,59 @@
+package com.example.teamcity.api.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Повторы Poller: число попыток, таймаут и причина ошибки.
+ */
+@Test(groups = {"Regression"})
+public class PollerTest {
+    private static final Backoff BACKOFF = new Backoff(Duration.ofMillis(1), Duration.ofMillis(5), 2);
+
+    @Test(description = "Poll should retry not ready checks and count attempts", groups = {"Positive"})
+    public void attemptsTest() {
+        var calls = new AtomicInteger();
+
+        // Первая попытка - еще нет значения, вторая - ошибка, третья - успех
+        var result = Poller.poll("ready on third", Duration.ofSeconds(10), BACKOFF, () -> switch (calls.incrementAndGet()) {
+            case 1 -> null;
+            case 2 -> throw new IllegalStateException("not yet");
+            default -> "done";
+        });
+
+        Assert.assertEquals(result.value(), "done");
+        Assert.assertEquals(result.attempts(), 3);
+        Assert.assertEquals(calls.get(), 3);
+        Assert.assertFalse(result.waited().isNegative());
+    }
+
+    @Test(description = "Timeout should fail with the last check error as cause", groups = {"Negative"})
+    public void timeoutWithLastErrorTest() {
+        var calls = new AtomicInteger();
+        var lastError = new AtomicReference<AssertionError>();
+
+        var e = Assert.expectThrows(IllegalStateException.class, () ->
+                Poller.poll("never ready", Duration.ofMillis(50), BACKOFF, () -> {
+                    var error = new AssertionError("attempt " + calls.incrementAndGet());
+                    lastError.set(error);
+                    throw error;
+                }));
+
+        Assert.assertSame(e.getCause(), lastError.get());
+        Assert.assertTrue(calls.get() > 1, "Check should be retried until timeout");
+        Assert.assertTrue(e.getMessage().startsWith("never ready: not done after %d attempts".formatted(calls.get())),
+                e.getMessage());
+    }
+
+    @Test(description = "Timeout after a not ready result should have no cause", groups = {"Negative"})
+    public void timeoutWithoutErrorTest() {
+        var e = Assert.expectThrows(IllegalStateException.class, () ->
+                Poller.poll("empty", Duration.ofMillis(20), BACKOFF, () -> null));
+
+        Assert.assertNull(e.getCause());
+    }
+}
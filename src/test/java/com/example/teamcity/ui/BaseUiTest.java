@@ -1,22 +1,24 @@
 package com.example.teamcity.ui;
 
 import com.codeborne.selenide.Configuration;
-import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.logevents.SelenideLogger;
 import com.example.teamcity.BaseTest;
 import com.example.teamcity.api.config.Config;
 import com.example.teamcity.api.enums.Endpoint;
 import com.example.teamcity.api.models.User;
-import com.example.teamcity.ui.pages.LoginPage;
+import com.example.teamcity.api.readiness.ServerReadiness;
 import io.qameta.allure.selenide.AllureSelenide;
-import org.testng.annotations.AfterMethod;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
+import org.testng.xml.XmlSuite;
 
 import java.util.Map;
 
 public class BaseUiTest extends BaseTest {
     @BeforeSuite(alwaysRun = true)
-    public void setupUiTest() {
+    public void setupUiTest(ITestContext context) {
         Configuration.browser = Config.getProperty("browser");
         Configuration.baseUrl = "http://" + Config.getProperty("host");
         // Не пишем UI тесты с локальным браузером!
@@ -29,15 +31,35 @@ public class BaseUiTest extends BaseTest {
                 .screenshots(true)
                 .savePageSource(true)
                 .includeSelenideSteps(true));
+
+        // Сессий в пуле столько, сколько тестов может выполняться одновременно
+        var suite = context.getSuite().getXmlSuite();
+        WebDriverPool.setSize(suite.getParallel() == XmlSuite.ParallelMode.NONE ? 1 : suite.getThreadCount());
+
+        // Тесты начинаются, как только сервер отвечает, а не по таймауту ожидания элементов страницы
+        ServerReadiness.awaitWebUi();
+    }
+
+    @BeforeMethod(alwaysRun = true)
+    public void acquireWebDriver() {
+        WebDriverPool.acquire();
+    }
+
+    // Браузер не закрывается, а очищается и возвращается в пул (см. WebDriverPool).
+    // Сессия упавшего теста, в том числе упавшего только на soft assert'ах, в пул не возвращается
+    @Override
+    protected void afterAssertions(boolean failed) {
+        WebDriverPool.release(failed);
     }
 
-    @AfterMethod(alwaysRun = true)
-    public void closeWebDriver() {
-        Selenide.closeWebDriver();
+    @AfterSuite(alwaysRun = true)
+    public void quitWebDrivers() {
+        WebDriverPool.quitAll();
     }
 
+    // Логин через cookie сессии, без формы входа (см. SessionLogin)
     protected void loginAs(User user) {
         superUserCheckRequests.getRequest(Endpoint.USERS).create(user);
-        LoginPage.open().login(user);
+        SessionLogin.login(user);
     }
 }
@@ -19,39 +19,39 @@ public class CreateBuildTypeTest extends BaseUiTest {
     @Test(description = "User should be able to create buildType", groups = {"Positive"})
     public void userCreatesBuildType() {
         // login
-        loginAs(testData.getUser());
+        loginAs(testData().getUser());
 
         // create project
-        var userCheckRequests = new CheckedRequests(Specifications.authSpec(testData.getUser()));
-        userCheckRequests.<Project>getRequest(PROJECTS).create(testData.getProject());
+        var userCheckRequests = new CheckedRequests(Specifications.authSpec(testData().getUser()));
+        userCheckRequests.<Project>getRequest(PROJECTS).create(testData().getProject());
 
         // create build type
-        CreateBuildTypePage.open(testData.getProject().getId())
-                .createForm(testData.getProject().getName(), REPO_URL)
-                .setupBuildType(testData.getBuildType().getName());
+        CreateBuildTypePage.open(testData().getProject().getId())
+                .createForm(testData().getProject().getName(), REPO_URL)
+                .setupBuildType(testData().getBuildType().getName());
 
         // check build type was created
-        var createdBuildType = userCheckRequests.<BuildType>getRequest(Endpoint.BUILD_TYPES).read("name:" + testData.getBuildType().getName());
-        softy.assertNotNull(createdBuildType);
+        var createdBuildType = userCheckRequests.<BuildType>getRequest(Endpoint.BUILD_TYPES).awaitRead("name:" + testData().getBuildType().getName());
+        softy().assertNotNull(createdBuildType);
         TestDataStorage.getStorage().addCreatedEntity(Endpoint.BUILD_TYPES, createdBuildType);
 
         // open build type page, check title
         BuildTypePage.open(createdBuildType.getId())
-                .title.shouldHave(Condition.exactText(testData.getBuildType().getName()));
+                .title.shouldHave(Condition.exactText(testData().getBuildType().getName()));
     }
 
     @Test(description = "User should not be able to create buildType without name", groups = {"Negative"})
     public void userCanNotCreateBuildTypeWithoutName() {
         // login
-        loginAs(testData.getUser());
+        loginAs(testData().getUser());
 
         // create project
-        var userCheckRequests = new CheckedRequests(Specifications.authSpec(testData.getUser()));
-        userCheckRequests.<Project>getRequest(PROJECTS).create(testData.getProject());
+        var userCheckRequests = new CheckedRequests(Specifications.authSpec(testData().getUser()));
+        userCheckRequests.<Project>getRequest(PROJECTS).create(testData().getProject());
 
         // check build type can not be created without name
-        CreateBuildTypePage.open(testData.getProject().getId())
-                .createForm(testData.getProject().getName(), REPO_URL)
+        CreateBuildTypePage.open(testData().getProject().getId())
+                .createForm(testData().getProject().getName(), REPO_URL)
                 .setupBuildType("")
                 .checkErrorMessage();
     }
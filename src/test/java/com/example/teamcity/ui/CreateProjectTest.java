@@ -9,9 +9,6 @@ import com.example.teamcity.ui.pages.ProjectsPage;
 import com.example.teamcity.ui.pages.admin.CreateProjectPage;
 import org.testng.annotations.Test;
 
-import java.time.Duration;
-
-import static com.codeborne.selenide.Condition.visible;
 import static com.example.teamcity.ui.pages.admin.CreateBasePage.REPO_URL;
 import static io.qameta.allure.Allure.step;
 
@@ -21,30 +18,27 @@ public class CreateProjectTest extends BaseUiTest {
     @Test(description = "User should be able to create project", groups = {"Positive"})
     public void userCreatesProject() {
         // подготовка окружения
-        loginAs(testData.getUser());
+        loginAs(testData().getUser());
 
         // взаимодействие с UI
         CreateProjectPage.open("_Root")
                 .createForm(REPO_URL)
-                .setupProject(testData.getProject().getName(), testData.getBuildType().getName());
+                .setupProject(testData().getProject().getName(), testData().getBuildType().getName());
 
         // проверка состояния API
         // (корректность отправки данных с UI на API)
-        var createdProject = superUserCheckRequests.<Project>getRequest(Endpoint.PROJECTS).read("name:" + testData.getProject().getName());
-        softy.assertNotNull(createdProject);
+        var createdProject = superUserCheckRequests.<Project>getRequest(Endpoint.PROJECTS).awaitRead("name:" + testData().getProject().getName());
+        softy().assertNotNull(createdProject);
         TestDataStorage.getStorage().addCreatedEntity(Endpoint.PROJECTS, createdProject);
 
         // проверка состояния UI
         // (корректность считывания данных и отображение данных на UI)
         ProjectPage.open(createdProject.getId())
-                .title.shouldHave(Condition.exactText(testData.getProject().getName()));
+                .title.shouldHave(Condition.exactText(testData().getProject().getName()));
 
-        var projectExists = ProjectsPage.open().getProjects().stream()
-                .anyMatch(project -> {
-                    project.getName().shouldBe(visible, Duration.ofSeconds(2));
-                    return project.getName().getText().equals(testData.getProject().getName());
-                });
-        softy.assertTrue(projectExists);
+        var projectExists = ProjectsPage.open().getProjectsData(testData().getProject().getName()).stream()
+                .anyMatch(project -> testData().getProject().getName().equals(project.name()));
+        softy().assertTrue(projectExists);
     }
 
     @Test(description = "User should not be able to create project without name", groups = {"Negative"})